@@ -3,12 +3,14 @@ package org.uklin.plugin.api.action;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.CommonDataKeys;
-import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
 import com.intellij.psi.util.PsiTreeUtil;
 import org.jetbrains.annotations.NotNull;
 import org.uklin.plugin.api.util.NotificationUtil;
@@ -36,15 +38,19 @@ public class YApiGenerateClassAction extends AnAction {
 			NotificationUtil.errorNotify("this operate only support in class file", project);
 			return;
 		}
+		SmartPointerManager pointerManager = SmartPointerManager.getInstance(project);
+		SmartPsiElementPointer<PsiClass> classPointer = pointerManager.createSmartPsiElementPointer(selectedClass);
+		PsiMethod selectedMethod = PsiTreeUtil.getContextOfType(referenceAt, PsiMethod.class);
+		SmartPsiElementPointer<PsiMethod> methodPointer = selectedMethod == null ? null : pointerManager.createSmartPsiElementPointer(selectedMethod);
 		if (selectedClass.isInterface()) {
-			YApiUtil.generateMarkdownForInterface(project, referenceAt, selectedClass);
+			YApiUtil.runInBackground(project, "Generating api doc", indicator -> YApiUtil.generateMarkdownForInterface(project, classPointer, methodPointer, indicator));
 			return;
 		}
 		if (YApiUtil.haveControllerAnnotation(selectedClass)) {
-			YApiUtil.uploadApiToYApi(project, referenceAt, selectedClass);
+			YApiUtil.runInBackground(project, "Uploading api to YApi", indicator -> YApiUtil.uploadApiToYApi(project, classPointer, methodPointer, indicator));
 			return;
 		}
-		YApiUtil.generateMarkdownForClass(project, selectedClass);
+		YApiUtil.runInBackground(project, "Generating api doc", indicator -> YApiUtil.generateMarkdownForClass(project, classPointer, indicator));
 	}
 
 	@Override
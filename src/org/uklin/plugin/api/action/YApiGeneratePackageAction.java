@@ -3,79 +3,94 @@ package org.uklin.plugin.api.action;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.vfs.StandardFileSystems;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.openapi.vfs.VirtualFileManager;
-import com.intellij.openapi.vfs.VirtualFileSystem;
+import com.intellij.psi.JavaPsiFacade;
 import com.intellij.psi.PsiClass;
-import com.intellij.psi.PsiElement;
-import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiManager;
-import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.SmartPointerManager;
+import com.intellij.psi.SmartPsiElementPointer;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScopesCore;
+import com.intellij.psi.search.searches.AnnotatedElementsSearch;
 import org.jetbrains.annotations.NotNull;
+import org.uklin.plugin.api.index.EndpointIndex;
 import org.uklin.plugin.api.util.NotificationUtil;
 import org.uklin.plugin.api.util.YApiUtil;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 public class YApiGeneratePackageAction extends AnAction {
 
-	private static final VirtualFileSystem localFileSystem = VirtualFileManager.getInstance().getFileSystem(StandardFileSystems.FILE_PROTOCOL);
+	private static final List<String> controllerAnnotations = Arrays.asList(
+			"org.springframework.stereotype.Controller",
+			"org.springframework.web.bind.annotation.RestController");
 
 	@Override
 	public void actionPerformed(@NotNull AnActionEvent actionEvent) {
 		Project project = actionEvent.getDataContext().getData(CommonDataKeys.PROJECT);
 		VirtualFile[] files = actionEvent.getDataContext().getData(CommonDataKeys.VIRTUAL_FILE_ARRAY);
-		if (files == null) {
+		if (project == null || files == null) {
 			return;
 		}
-		List<PsiFile> psiFiles = new ArrayList<>(64);
-		Set<String> fileSet = new HashSet<>(64);
-		for (VirtualFile file : files) {
-			List<String> temp = genChild(file);
-			fileSet.addAll(temp);
-		}
-		for(String file:fileSet){
-			VirtualFile vFile = localFileSystem.findFileByPath(file);
-			assert project != null;
-			assert vFile != null;
-			PsiFile psiFile = PsiManager.getInstance(project).findFile(vFile);
-			psiFiles.add(psiFile);
-		}
 		YApiUtil.initConfig(project);
-		for(PsiFile psiFile:psiFiles){
-			String name =psiFile.getName().replace(".java","");
-			int index =psiFile.getText().indexOf(name);
-			PsiElement referenceAt = psiFile.findElementAt(index);
-			PsiClass selectedClass = PsiTreeUtil.getContextOfType(referenceAt, PsiClass.class);
-			if (selectedClass == null) {
-				NotificationUtil.errorNotify("this operate only support in class file", project);
+		YApiUtil.runInBackground(project, "Uploading api to YApi", indicator -> {
+			indicator.setText("Finding controllers");
+			List<SmartPsiElementPointer<PsiClass>> controllers = YApiUtil.analyze(project, indicator, () -> {
+				List<SmartPsiElementPointer<PsiClass>> pointers = new ArrayList<>();
+				for (PsiClass controller : findControllers(project, files)) {
+					pointers.add(SmartPointerManager.createPointer(controller));
+				}
+				return pointers;
+			});
+			if (controllers.isEmpty()) {
+				NotificationUtil.warnNotify("No controller found in selected files.", project);
 				return;
 			}
-			if (YApiUtil.haveControllerAnnotation(selectedClass)) {
-				YApiUtil.uploadApiToYApi(project,referenceAt,selectedClass);
-				NotificationUtil.infoNotify(name + " api upload success.", project);
+			warnConflicts(project, controllers, indicator);
+			YApiUtil.uploadClassesToYApi(project, controllers, indicator);
+		});
+	}
+
+	/**
+	 * 所选Controller中有接口与其它方法的请求方法和路径相同时提示，上传到YApi后会互相覆盖
+	 */
+	private void warnConflicts(Project project, List<SmartPsiElementPointer<PsiClass>> controllers, ProgressIndicator indicator) {
+		List<String> conflicts = YApiUtil.analyze(project, indicator, () -> {
+			List<PsiClass> classes = new ArrayList<>();
+			for (SmartPsiElementPointer<PsiClass> controller : controllers) {
+				PsiClass psiClass = controller.getElement();
+				if (psiClass != null) {
+					classes.add(psiClass);
+				}
 			}
+			return EndpointIndex.findConflicts(project, classes);
+		});
+		if (!conflicts.isEmpty()) {
+			NotificationUtil.warnNotify("Duplicate api path:\n" + String.join("\n", conflicts), project);
 		}
 	}
 
-	private List<String> genChild(VirtualFile vFile) {
-		List<String> result = new ArrayList<>();
-		if (vFile.isDirectory()) {
-			VirtualFile[] children = vFile.getChildren();
-			if (children != null && children.length > 0) {
-				for (VirtualFile bean : children) {
-					result.addAll(genChild(bean));
-				}
+	/**
+	 * 通过索引查找所选目录和文件中有@Controller或@RestController注解的类，不解析其它文件
+	 */
+	private Collection<PsiClass> findControllers(Project project, VirtualFile[] files) {
+		GlobalSearchScope scope = GlobalSearchScope.EMPTY_SCOPE;
+		for (VirtualFile file : files) {
+			scope = scope.union(file.isDirectory() ? GlobalSearchScopesCore.directoryScope(project, file, true) : GlobalSearchScope.fileScope(project, file));
+		}
+		GlobalSearchScope allScope = GlobalSearchScope.allScope(project);
+		Map<String, PsiClass> controllers = new TreeMap<>();
+		for (String annotation : controllerAnnotations) {
+			PsiClass annotationClass = JavaPsiFacade.getInstance(project).findClass(annotation, allScope);
+			if (annotationClass == null) {
+				continue;
+			}
+			for (PsiClass psiClass : AnnotatedElementsSearch.searchPsiClasses(annotationClass, scope).findAll()) {
+				controllers.putIfAbsent(String.valueOf(psiClass.getQualifiedName()), psiClass);
 			}
-		} else if("JAVA".equals(vFile.getFileType().getName())) {
-			result.add(vFile.getPath());
 		}
-		return result;
+		return controllers.values();
 	}
 
 	@Override
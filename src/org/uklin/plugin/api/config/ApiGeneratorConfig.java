@@ -2,29 +2,75 @@ package org.uklin.plugin.api.config;
 
 import com.intellij.openapi.components.PersistentStateComponent;
 import com.intellij.openapi.components.State;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.SimpleModificationTracker;
 import com.intellij.util.xmlb.XmlSerializerUtil;
+import com.intellij.util.xmlb.annotations.Transient;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashSet;
-import java.util.Set;
-
 
 @State(name = "ApiGeneratorConfig")
 public class ApiGeneratorConfig implements PersistentStateComponent<ApiGeneratorConfig> {
 
-    public Set<String> excludeFieldNames = new HashSet<>();
     public String excludeFields = "serialVersionUID";
     public String dirPath = "";
     public String prefix = "└";
     public Boolean cnFileName = false;
     public Boolean overwrite = true;
+    /**
+     * 分析时预先解析的字段层数，更深的字段不解析，实际层数不超过maxDepth
+     */
+    public Integer prefetchDepth = 10;
+    public Integer maxDepth = 10;
+    public Integer maxNodes = 5000;
+    public Integer maxProperties = 300;
 
     public String yApiServerUrl = "";
     public String projectToken = "";
     public String projectId = "";
     public Boolean autoCat = false;
     public String defaultCat = "api_generator";
+    /**
+     * 跳过内容与上次上传相同的接口
+     */
+    public Boolean incrementalUpload = true;
+    /**
+     * 连接YApi服务器的超时时间，单位毫秒
+     */
+    public Integer connectTimeout = 5000;
+    /**
+     * 读取YApi响应的超时时间，单位毫秒
+     */
+    public Integer readTimeout = 30000;
+    public Integer maxConnectionsPerRoute = 8;
+    /**
+     * 以gzip压缩请求体，需要YApi服务器或反向代理支持
+     */
+    public Boolean gzipRequest = false;
+    /**
+     * 服务器不可用时幂等请求的最大重试次数
+     */
+    public Integer maxRetries = 3;
+    /**
+     * 同时上传的接口数
+     */
+    public Integer maxConcurrentUploads = 4;
+    /**
+     * 每秒最多上传的接口数，0表示不限制
+     */
+    public Integer uploadRateLimit = 10;
+    /**
+     * 通过import_data接口批量导入，不逐个保存接口
+     */
+    public Boolean bulkImport = false;
+    /**
+     * 批量导入时已存在接口的处理方式：normal不覆盖，good智能合并，merge完全覆盖
+     */
+    public String importMerge = "merge";
+
+    private final SimpleModificationTracker modificationTracker = new SimpleModificationTracker();
+    private volatile FieldExcludeMatcher excludeMatcher;
 
     @Nullable
     @Override
@@ -35,5 +81,35 @@ public class ApiGeneratorConfig implements PersistentStateComponent<ApiGenerator
     @Override
     public void loadState(@NotNull ApiGeneratorConfig state) {
         XmlSerializerUtil.copyBean(state, this);
+        incModificationCount();
+    }
+
+    /**
+     * 配置修改次数，依赖配置的缓存以此判断是否失效
+     */
+    @Transient
+    public ModificationTracker getModificationTracker() {
+        return modificationTracker;
+    }
+
+    /**
+     * 修改配置后调用，同时重新编译排除字段规则
+     */
+    public void incModificationCount() {
+        excludeMatcher = null;
+        modificationTracker.incModificationCount();
+    }
+
+    /**
+     * 由{@link #excludeFields}编译的排除字段规则
+     */
+    @Transient
+    public FieldExcludeMatcher getExcludeMatcher() {
+        FieldExcludeMatcher matcher = excludeMatcher;
+        if (matcher == null) {
+            matcher = FieldExcludeMatcher.compile(excludeFields);
+            excludeMatcher = matcher;
+        }
+        return matcher;
     }
 }
@@ -1,22 +1,30 @@
 package org.uklin.plugin.api.config;
 
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.options.Configurable;
+import com.intellij.openapi.options.ConfigurationException;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.ComboBox;
 import com.intellij.ui.components.*;
-import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.Nullable;
+import org.uklin.plugin.api.normal.SchemaCache;
 import org.uklin.plugin.api.util.AssertUtils;
+import org.uklin.plugin.api.yapi.sdk.HttpClientPool;
 import org.uklin.plugin.api.yapi.sdk.YApiSdk;
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.IOException;
-import java.util.Arrays;
+import java.util.List;
 
 public class ApiGeneratorSetting implements Configurable {
 
+    private static final Logger LOG = Logger.getInstance(ApiGeneratorSetting.class);
+
+    private Project project;
     private ApiGeneratorConfig oldState;
 
 
@@ -24,15 +32,30 @@ public class ApiGeneratorSetting implements Configurable {
     JBTextField prefixTextField;
     JBCheckBox cnFileNameCheckBox;
     JBCheckBox overwriteCheckBox;
+    JBTextField prefetchDepthTextField;
+    JBTextField maxDepthTextField;
+    JBTextField maxNodesTextField;
+    JBTextField maxPropertiesTextField;
 
     JBTextField yApiUrlTextField;
     JBTextField tokenTextField;
     JBLabel projectIdLabel;
     JBTextField defaultCatTextField;
     JBCheckBox autoCatCheckBox;
+    JBCheckBox incrementalUploadCheckBox;
+    JBTextField connectTimeoutTextField;
+    JBTextField readTimeoutTextField;
+    JBTextField maxConnectionsTextField;
+    JBTextField maxConcurrentUploadsTextField;
+    JBTextField uploadRateLimitTextField;
+    JBTextField maxRetriesTextField;
+    JBCheckBox bulkImportCheckBox;
+    JBCheckBox gzipRequestCheckBox;
+    ComboBox<String> importMergeComboBox;
     JBTextField excludeFields;
 
     public ApiGeneratorSetting(Project project) {
+        this.project = project;
         oldState = ServiceManager.getService(project,ApiGeneratorConfig.class);
     }
 
@@ -63,6 +86,22 @@ public class ApiGeneratorSetting implements Configurable {
         prefixTextField = buildTextField(layout, oldState.prefix);
         normalPanel.add(prefixTextField);
 
+        normalPanel.add(buildLabel(layout, "Prefetch Depth:"));
+        prefetchDepthTextField = buildTextField(layout, String.valueOf(oldState.prefetchDepth));
+        normalPanel.add(prefetchDepthTextField);
+
+        normalPanel.add(buildLabel(layout, "Max Depth:"));
+        maxDepthTextField = buildTextField(layout, String.valueOf(oldState.maxDepth));
+        normalPanel.add(maxDepthTextField);
+
+        normalPanel.add(buildLabel(layout, "Max Nodes:"));
+        maxNodesTextField = buildTextField(layout, String.valueOf(oldState.maxNodes));
+        normalPanel.add(maxNodesTextField);
+
+        normalPanel.add(buildLabel(layout, "Max Properties:"));
+        maxPropertiesTextField = buildTextField(layout, String.valueOf(oldState.maxProperties));
+        normalPanel.add(maxPropertiesTextField);
+
         overwriteCheckBox = buildJBCheckBox(layout, "Overwrite exists docs", oldState.overwrite);
         normalPanel.add(overwriteCheckBox);
 
@@ -93,9 +132,48 @@ public class ApiGeneratorSetting implements Configurable {
         defaultCatTextField = buildTextField(layout, oldState.defaultCat);
         yApiPanel.add(defaultCatTextField);
 
+        yApiPanel.add(buildLabel(layout, "Connect timeout(ms):"));
+        connectTimeoutTextField = buildTextField(layout, String.valueOf(oldState.connectTimeout));
+        yApiPanel.add(connectTimeoutTextField);
+
+        yApiPanel.add(buildLabel(layout, "Read timeout(ms):"));
+        readTimeoutTextField = buildTextField(layout, String.valueOf(oldState.readTimeout));
+        yApiPanel.add(readTimeoutTextField);
+
+        yApiPanel.add(buildLabel(layout, "Max connections:"));
+        maxConnectionsTextField = buildTextField(layout, String.valueOf(oldState.maxConnectionsPerRoute));
+        yApiPanel.add(maxConnectionsTextField);
+
+        yApiPanel.add(buildLabel(layout, "Concurrent uploads:"));
+        maxConcurrentUploadsTextField = buildTextField(layout, String.valueOf(oldState.maxConcurrentUploads));
+        yApiPanel.add(maxConcurrentUploadsTextField);
+
+        yApiPanel.add(buildLabel(layout, "Rate limit(req/s):"));
+        uploadRateLimitTextField = buildTextField(layout, String.valueOf(oldState.uploadRateLimit));
+        yApiPanel.add(uploadRateLimitTextField);
+
+        yApiPanel.add(buildLabel(layout, "Max retries:"));
+        maxRetriesTextField = buildTextField(layout, String.valueOf(oldState.maxRetries));
+        yApiPanel.add(maxRetriesTextField);
+
+        yApiPanel.add(buildLabel(layout, "Import merge mode:"));
+        importMergeComboBox = new ComboBox<>(new String[]{"normal", "good", "merge"});
+        importMergeComboBox.setSelectedItem(oldState.importMerge);
+        layout.setConstraints(importMergeComboBox, getValueConstraints());
+        yApiPanel.add(importMergeComboBox);
+
         autoCatCheckBox = buildJBCheckBox(layout, "Classify API automatically", oldState.autoCat);
         yApiPanel.add(autoCatCheckBox);
 
+        incrementalUploadCheckBox = buildJBCheckBox(layout, "Skip unchanged API", oldState.incrementalUpload);
+        yApiPanel.add(incrementalUploadCheckBox);
+
+        bulkImportCheckBox = buildJBCheckBox(layout, "Bulk import", oldState.bulkImport);
+        yApiPanel.add(bulkImportCheckBox);
+
+        gzipRequestCheckBox = buildJBCheckBox(layout, "Compress request (gzip)", oldState.gzipRequest);
+        yApiPanel.add(gzipRequestCheckBox);
+
         jbTabbedPane.addTab("YApi Setting", yApiPanel);
         return jbTabbedPane;
     }
@@ -144,32 +222,105 @@ public class ApiGeneratorSetting implements Configurable {
                 !oldState.projectId.equals(projectIdLabel.getText()) ||
                 !oldState.defaultCat.equals(defaultCatTextField.getText()) ||
                 oldState.autoCat != autoCatCheckBox.isSelected() ||
+                oldState.incrementalUpload != incrementalUploadCheckBox.isSelected() ||
+                oldState.bulkImport != bulkImportCheckBox.isSelected() ||
+                oldState.gzipRequest != gzipRequestCheckBox.isSelected() ||
+                !oldState.importMerge.equals(importMergeComboBox.getSelectedItem()) ||
+                !String.valueOf(oldState.connectTimeout).equals(connectTimeoutTextField.getText()) ||
+                !String.valueOf(oldState.readTimeout).equals(readTimeoutTextField.getText()) ||
+                !String.valueOf(oldState.maxConnectionsPerRoute).equals(maxConnectionsTextField.getText()) ||
+                !String.valueOf(oldState.maxConcurrentUploads).equals(maxConcurrentUploadsTextField.getText()) ||
+                !String.valueOf(oldState.uploadRateLimit).equals(uploadRateLimitTextField.getText()) ||
+                !String.valueOf(oldState.maxRetries).equals(maxRetriesTextField.getText()) ||
                 !oldState.dirPath.equals(dirPathTextField.getText()) ||
+                !String.valueOf(oldState.prefetchDepth).equals(prefetchDepthTextField.getText()) ||
+                !String.valueOf(oldState.maxDepth).equals(maxDepthTextField.getText()) ||
+                !String.valueOf(oldState.maxNodes).equals(maxNodesTextField.getText()) ||
+                !String.valueOf(oldState.maxProperties).equals(maxPropertiesTextField.getText()) ||
                 !oldState.excludeFields.equals(excludeFields.getText());
     }
 
     @Override
-    public void apply() {
-        oldState.excludeFields = excludeFields.getText();
-        if (!StringUtils.isEmpty(excludeFields.getText())) {
-            String[] split = excludeFields.getText().split(",");
-            oldState.excludeFieldNames.addAll(Arrays.asList(split));
+    public void apply() throws ConfigurationException {
+        List<String> excludeErrors = FieldExcludeMatcher.validate(excludeFields.getText());
+        if (!excludeErrors.isEmpty()) {
+            throw new ConfigurationException("Invalid exclude fields regex:\n" + String.join("\n", excludeErrors));
         }
+        //先校验全部数值，有错误时不修改任何配置
+        int prefetchDepth = parseInt(prefetchDepthTextField, "Prefetch Depth", 1);
+        int maxDepth = parseInt(maxDepthTextField, "Max Depth", 1);
+        int maxNodes = parseInt(maxNodesTextField, "Max Nodes", 1);
+        int maxProperties = parseInt(maxPropertiesTextField, "Max Properties", 1);
+        int connectTimeout = parseInt(connectTimeoutTextField, "Connect timeout", 1);
+        int readTimeout = parseInt(readTimeoutTextField, "Read timeout", 1);
+        int maxConnections = parseInt(maxConnectionsTextField, "Max connections", 1);
+        int maxConcurrentUploads = parseInt(maxConcurrentUploadsTextField, "Concurrent uploads", 1);
+        int uploadRateLimit = parseInt(uploadRateLimitTextField, "Rate limit", 0);
+        int maxRetries = parseInt(maxRetriesTextField, "Max retries", 0);
+        //只有连接相关的配置修改后才需要重新创建客户端
+        boolean connectionChanged = !oldState.yApiServerUrl.equals(yApiUrlTextField.getText()) ||
+                oldState.connectTimeout != connectTimeout ||
+                oldState.readTimeout != readTimeout ||
+                oldState.maxConnectionsPerRoute != maxConnections;
+        oldState.excludeFields = excludeFields.getText();
         oldState.dirPath = dirPathTextField.getText();
         oldState.prefix = prefixTextField.getText();
         oldState.cnFileName = cnFileNameCheckBox.isSelected();
         oldState.overwrite = overwriteCheckBox.isSelected();
+        oldState.prefetchDepth = prefetchDepth;
+        oldState.maxDepth = maxDepth;
+        oldState.maxNodes = maxNodes;
+        oldState.maxProperties = maxProperties;
         oldState.yApiServerUrl = yApiUrlTextField.getText();
         oldState.projectToken = tokenTextField.getText();
+        oldState.connectTimeout = connectTimeout;
+        oldState.readTimeout = readTimeout;
+        oldState.maxConnectionsPerRoute = maxConnections;
+        oldState.maxConcurrentUploads = maxConcurrentUploads;
+        oldState.uploadRateLimit = uploadRateLimit;
+        oldState.maxRetries = maxRetries;
+        if (connectionChanged) {
+            HttpClientPool.getInstance(project).reset();
+        }
         if(AssertUtils.isNotEmpty(yApiUrlTextField.getText()) && AssertUtils.isNotEmpty(tokenTextField.getText())) {
-            try {
-                oldState.projectId = YApiSdk.getProjectInfo(yApiUrlTextField.getText(), tokenTextField.getText()).get_id().toString();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            //不阻塞设置窗口，获取到项目信息后在EDT中更新项目ID
+            YApiSdk.getInstance(project).getProjectInfo(yApiUrlTextField.getText(), tokenTextField.getText()).whenComplete((yApiResponse, e) -> {
+                if (e != null) {
+                    LOG.warn("Get YApi project info failed", e);
+                } else if (yApiResponse.getData() != null && yApiResponse.getData().get_id() != null) {
+                    String projectId = yApiResponse.getData().get_id().toString();
+                    ApplicationManager.getApplication().invokeLater(() -> {
+                        oldState.projectId = projectId;
+                        projectIdLabel.setText(projectId);
+                    }, ModalityState.any(), project.getDisposed());
+                }
+            });
         }
         oldState.defaultCat = defaultCatTextField.getText();
         oldState.autoCat = autoCatCheckBox.isSelected();
+        oldState.incrementalUpload = incrementalUploadCheckBox.isSelected();
+        oldState.bulkImport = bulkImportCheckBox.isSelected();
+        oldState.gzipRequest = gzipRequestCheckBox.isSelected();
+        oldState.importMerge = (String) importMergeComboBox.getSelectedItem();
+        oldState.incModificationCount();
+        SchemaCache.getInstance(project).clear();
+    }
+
+    /**
+     * @param min 允许的最小值
+     * @throws ConfigurationException 不是整数或小于最小值
+     */
+    private int parseInt(JBTextField textField, String name, int min) throws ConfigurationException {
+        int value;
+        try {
+            value = Integer.parseInt(textField.getText().trim());
+        } catch (NumberFormatException e) {
+            throw new ConfigurationException(name + " must be an integer.");
+        }
+        if (value < min) {
+            throw new ConfigurationException(name + " must be at least " + min + ".");
+        }
+        return value;
     }
 
 }
@@ -0,0 +1,172 @@
+package org.uklin.plugin.api.config;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 排除字段规则
+ * <p>
+ * 由配置中以逗号、分号或换行分隔的规则编译而成，支持以下写法：
+ * <ul>
+ * <li>字段名，如serialVersionUID</li>
+ * <li>通配符，*匹配任意个字符，?匹配一个字符，如create*</li>
+ * <li>正则表达式，以regex:开头，如regex:^_.*</li>
+ * <li>只对某个类生效的规则，类名#规则，类名可以是简单类名或全名，如BaseEntity#create*</li>
+ * </ul>
+ * 正则表达式中可能有逗号，因此正则规则一直到分号或换行为止，如serialVersionUID,regex:^\w{1,3}$;create*
+ */
+public class FieldExcludeMatcher {
+
+    private static final String REGEX_PREFIX = "regex:";
+
+    private final Set<String> names = new HashSet<>();
+    private final List<Pattern> patterns = new ArrayList<>();
+    private final Map<String, FieldExcludeMatcher> typeMatchers = new HashMap<>();
+
+    private FieldExcludeMatcher() {
+    }
+
+    public static FieldExcludeMatcher compile(String rules) {
+        FieldExcludeMatcher matcher = new FieldExcludeMatcher();
+        for (String rule : splitRules(rules)) {
+            matcher.addRule(rule);
+        }
+        return matcher;
+    }
+
+    /**
+     * 检查规则中的正则表达式
+     *
+     * @return 每个无效的正则规则一条错误信息
+     */
+    public static List<String> validate(String rules) {
+        List<String> errors = new ArrayList<>();
+        for (String rule : splitRules(rules)) {
+            int index = rule.indexOf(REGEX_PREFIX);
+            if (index < 0) {
+                continue;
+            }
+            try {
+                Pattern.compile(rule.substring(index + REGEX_PREFIX.length()));
+            } catch (PatternSyntaxException e) {
+                errors.add(rule + ": " + e.getDescription());
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * 先按分号和换行拆分，每段再按逗号拆分，段内的正则规则连同其中的逗号一直到段尾
+     */
+    private static List<String> splitRules(String rules) {
+        List<String> result = new ArrayList<>();
+        if (StringUtils.isEmpty(rules)) {
+            return result;
+        }
+        for (String segment : rules.split("[;\\n]")) {
+            String plainRules = segment;
+            String regexRule = null;
+            int regexIndex = segment.indexOf(REGEX_PREFIX);
+            if (regexIndex >= 0) {
+                int ruleStart = segment.lastIndexOf(',', regexIndex) + 1;
+                plainRules = segment.substring(0, ruleStart);
+                regexRule = segment.substring(ruleStart).trim();
+            }
+            for (String rule : plainRules.split(",")) {
+                if (!rule.trim().isEmpty()) {
+                    result.add(rule.trim());
+                }
+            }
+            if (regexRule != null) {
+                result.add(regexRule);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 字段是否被不限定类的规则排除
+     */
+    public boolean isExcluded(String fieldName) {
+        if (names.contains(fieldName)) {
+            return true;
+        }
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(fieldName).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 字段是否被排除
+     *
+     * @param typeNames 字段所属类的简单类名和全名
+     */
+    public boolean isExcluded(String fieldName, Collection<String> typeNames) {
+        if (isExcluded(fieldName)) {
+            return true;
+        }
+        if (typeMatchers.isEmpty()) {
+            return false;
+        }
+        for (String typeName : typeNames) {
+            FieldExcludeMatcher typeMatcher = typeMatchers.get(typeName);
+            if (typeMatcher != null && typeMatcher.isExcluded(fieldName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addRule(String rule) {
+        if (rule.isEmpty()) {
+            return;
+        }
+        if (rule.startsWith(REGEX_PREFIX)) {
+            addPattern(rule.substring(REGEX_PREFIX.length()));
+            return;
+        }
+        int index = rule.indexOf('#');
+        if (index > 0) {
+            typeMatchers.computeIfAbsent(rule.substring(0, index).trim(), key -> new FieldExcludeMatcher()).addRule(rule.substring(index + 1).trim());
+            return;
+        }
+        if (rule.indexOf('*') >= 0 || rule.indexOf('?') >= 0) {
+            addPattern(globToRegex(rule));
+            return;
+        }
+        names.add(rule);
+    }
+
+    private void addPattern(String regex) {
+        try {
+            patterns.add(Pattern.compile(regex));
+        } catch (PatternSyntaxException e) {
+            //无效的正则表达式不排除任何字段，保存配置时由validate提示
+        }
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int start = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                if (i > start) {
+                    regex.append(Pattern.quote(glob.substring(start, i)));
+                }
+                regex.append(c == '*' ? ".*" : ".");
+                start = i + 1;
+            }
+        }
+        if (start < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(start)));
+        }
+        return regex.toString();
+    }
+}
@@ -0,0 +1,25 @@
+package org.uklin.plugin.api.constant;
+
+/**
+ * 类型分类
+ */
+public enum TypeKind {
+    LITERAL(TypeEnum.LITERAL),
+    ENUM(TypeEnum.LITERAL),
+    ARRAY(TypeEnum.ARRAY),
+    MAP(TypeEnum.OBJECT),
+    OBJECT(TypeEnum.OBJECT);
+
+    private final TypeEnum typeEnum;
+
+    TypeKind(TypeEnum typeEnum) {
+        this.typeEnum = typeEnum;
+    }
+
+    /**
+     * 生成文档时使用的参数类型
+     */
+    public TypeEnum getTypeEnum() {
+        return typeEnum;
+    }
+}
@@ -3,9 +3,11 @@ package org.uklin.plugin.api.constant;
 public interface WebAnnotation {
 
     String Controller = "Controller";
+    String RestController = "RestController";
     String RequestMapping = "RequestMapping";
     String RequestParam = "RequestParam";
     String GetMapping = "GetMapping";
+    String PostMapping = "PostMapping";
     String PutMapping = "PutMapping";
     String DeleteMapping = "DeleteMapping";
     String PatchMapping = "PatchMapping";
@@ -0,0 +1,28 @@
+package org.uklin.plugin.api.index;
+
+import lombok.Data;
+import org.uklin.plugin.api.yapi.enums.RequestMethodEnum;
+
+/**
+ * 索引中记录的接口
+ */
+@Data
+public class Endpoint {
+
+    private final String path;
+    private final RequestMethodEnum requestMethod;
+    /**
+     * Controller类全名
+     */
+    private final String className;
+    private final String methodName;
+
+    public String getSignature() {
+        return className + "#" + methodName;
+    }
+
+    @Override
+    public String toString() {
+        return requestMethod + " " + path + " -> " + getSignature();
+    }
+}
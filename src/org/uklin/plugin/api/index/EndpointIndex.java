@@ -0,0 +1,284 @@
+package org.uklin.plugin.api.index;
+
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+import org.uklin.plugin.api.constant.WebAnnotation;
+import org.uklin.plugin.api.normal.AnnotationInfo;
+import org.uklin.plugin.api.yapi.enums.RequestMethodEnum;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 接口索引
+ * <p>
+ * 以完整请求路径为key，记录Controller中每个Mapping方法的请求方法、类名和方法名，文件修改后由IDE增量更新。
+ * 建索引时不能解析引用，注解按简单名称匹配，路径只取字符串字面量，使用常量的路径不会被索引
+ */
+public class EndpointIndex extends FileBasedIndexExtension<String, List<Endpoint>> {
+
+    public static final ID<String, List<Endpoint>> NAME = ID.create("org.uklin.plugin.api.EndpointIndex");
+
+    private static final Set<String> controllerNames = new HashSet<>(Arrays.asList(WebAnnotation.Controller, WebAnnotation.RestController));
+
+    @NotNull
+    @Override
+    public ID<String, List<Endpoint>> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, List<Endpoint>, FileContent> getIndexer() {
+        return inputData -> {
+            if (!StringUtil.contains(inputData.getContentAsText(), WebAnnotation.Controller)) {
+                return Collections.emptyMap();
+            }
+            PsiFile psiFile = inputData.getPsiFile();
+            if (!(psiFile instanceof PsiJavaFile)) {
+                return Collections.emptyMap();
+            }
+            Map<String, List<Endpoint>> result = new HashMap<>();
+            for (PsiClass psiClass : PsiTreeUtil.findChildrenOfType(psiFile, PsiClass.class)) {
+                if (psiClass.getQualifiedName() != null && isController(psiClass)) {
+                    indexClass(psiClass, result);
+                }
+            }
+            return result;
+        };
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<List<Endpoint>> getValueExternalizer() {
+        return new DataExternalizer<List<Endpoint>>() {
+            @Override
+            public void save(@NotNull DataOutput out, List<Endpoint> value) throws IOException {
+                DataInputOutputUtil.writeINT(out, value.size());
+                for (Endpoint endpoint : value) {
+                    IOUtil.writeUTF(out, endpoint.getPath());
+                    IOUtil.writeUTF(out, endpoint.getRequestMethod().name());
+                    IOUtil.writeUTF(out, endpoint.getClassName());
+                    IOUtil.writeUTF(out, endpoint.getMethodName());
+                }
+            }
+
+            @Override
+            public List<Endpoint> read(@NotNull DataInput in) throws IOException {
+                int size = DataInputOutputUtil.readINT(in);
+                List<Endpoint> endpoints = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    endpoints.add(new Endpoint(IOUtil.readUTF(in), RequestMethodEnum.valueOf(IOUtil.readUTF(in)), IOUtil.readUTF(in), IOUtil.readUTF(in)));
+                }
+                return endpoints;
+            }
+        };
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(JavaFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    /**
+     * 路径对应的所有接口
+     */
+    public static List<Endpoint> findByPath(Project project, String path) {
+        List<Endpoint> result = new ArrayList<>();
+        for (List<Endpoint> endpoints : FileBasedIndex.getInstance().getValues(NAME, AnnotationInfo.normalizePath(path), GlobalSearchScope.projectScope(project))) {
+            result.addAll(endpoints);
+        }
+        return result;
+    }
+
+    /**
+     * 指定Controller中与其它方法请求方法和路径都相同的接口，只按这些Controller的路径查询索引
+     *
+     * @return 每个冲突一行，如GET /user -> a.UserController#get, b.UserController#get
+     */
+    public static List<String> findConflicts(Project project, Collection<PsiClass> controllers) {
+        Map<String, List<Endpoint>> selected = new TreeMap<>();
+        for (PsiClass controller : controllers) {
+            if (controller.getQualifiedName() != null) {
+                indexClass(controller, selected);
+            }
+        }
+        List<String> conflicts = new ArrayList<>();
+        for (Map.Entry<String, List<Endpoint>> entry : selected.entrySet()) {
+            Map<RequestMethodEnum, Set<String>> signatures = new EnumMap<>(RequestMethodEnum.class);
+            for (Endpoint endpoint : entry.getValue()) {
+                signatures.computeIfAbsent(endpoint.getRequestMethod(), key -> new TreeSet<>()).add(endpoint.getSignature());
+            }
+            for (Endpoint endpoint : findByPath(project, entry.getKey())) {
+                Set<String> methodSignatures = signatures.get(endpoint.getRequestMethod());
+                if (methodSignatures != null) {
+                    methodSignatures.add(endpoint.getSignature());
+                }
+            }
+            for (Map.Entry<RequestMethodEnum, Set<String>> methodEntry : signatures.entrySet()) {
+                if (methodEntry.getValue().size() > 1) {
+                    conflicts.add(methodEntry.getKey() + " " + entry.getKey() + " -> " + String.join(", ", methodEntry.getValue()));
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    private static void indexClass(PsiClass psiClass, Map<String, List<Endpoint>> result) {
+        List<String> classPaths = Collections.singletonList("");
+        PsiAnnotation classMapping = findAnnotation(psiClass, WebAnnotation.RequestMapping);
+        if (classMapping != null) {
+            classPaths = getPaths(classMapping);
+            if (classPaths == null) {
+                return;
+            }
+        }
+        for (PsiMethod method : psiClass.getMethods()) {
+            PsiModifierList modifierList = method.getModifierList();
+            for (PsiAnnotation annotation : modifierList.getAnnotations()) {
+                RequestMethodEnum requestMethod = getRequestMethod(annotation);
+                if (requestMethod == null) {
+                    continue;
+                }
+                List<String> methodPaths = getPaths(annotation);
+                if (methodPaths != null) {
+                    for (String classPath : classPaths) {
+                        for (String methodPath : methodPaths) {
+                            String path = classPath + methodPath;
+                            result.computeIfAbsent(path, key -> new ArrayList<>()).add(new Endpoint(path, requestMethod, psiClass.getQualifiedName(), method.getName()));
+                        }
+                    }
+                }
+                break;
+            }
+        }
+    }
+
+    private static boolean isController(PsiClass psiClass) {
+        PsiModifierList modifierList = psiClass.getModifierList();
+        if (modifierList == null) {
+            return false;
+        }
+        for (PsiAnnotation annotation : modifierList.getAnnotations()) {
+            if (controllerNames.contains(getShortName(annotation))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static PsiAnnotation findAnnotation(PsiClass psiClass, String shortName) {
+        PsiModifierList modifierList = psiClass.getModifierList();
+        if (modifierList == null) {
+            return null;
+        }
+        for (PsiAnnotation annotation : modifierList.getAnnotations()) {
+            if (shortName.equals(getShortName(annotation))) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Mapping注解对应的请求方法，不是Mapping注解时返回null
+     */
+    private static RequestMethodEnum getRequestMethod(PsiAnnotation annotation) {
+        String name = getShortName(annotation);
+        if (name == null) {
+            return null;
+        }
+        switch (name) {
+            case WebAnnotation.GetMapping:
+                return RequestMethodEnum.GET;
+            case WebAnnotation.PostMapping:
+                return RequestMethodEnum.POST;
+            case WebAnnotation.PutMapping:
+                return RequestMethodEnum.PUT;
+            case WebAnnotation.DeleteMapping:
+                return RequestMethodEnum.DELETE;
+            case WebAnnotation.PatchMapping:
+                return RequestMethodEnum.PATCH;
+            case WebAnnotation.RequestMapping:
+                PsiAnnotationMemberValue value = annotation.findDeclaredAttributeValue("method");
+                if (value instanceof PsiArrayInitializerMemberValue) {
+                    PsiAnnotationMemberValue[] initializers = ((PsiArrayInitializerMemberValue) value).getInitializers();
+                    value = initializers.length == 0 ? null : initializers[0];
+                }
+                if (value instanceof PsiReferenceExpression) {
+                    String methodName = ((PsiReferenceExpression) value).getReferenceName();
+                    for (RequestMethodEnum methodEnum : RequestMethodEnum.values()) {
+                        if (methodEnum.name().equals(methodName)) {
+                            return methodEnum;
+                        }
+                    }
+                }
+                return RequestMethodEnum.POST;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Mapping注解中的全部路径，未指定路径时为空字符串
+     *
+     * @return 路径不是字符串字面量时返回null
+     */
+    private static List<String> getPaths(PsiAnnotation annotation) {
+        PsiAnnotationMemberValue value = annotation.findDeclaredAttributeValue("value");
+        if (value == null) {
+            value = annotation.findDeclaredAttributeValue("path");
+        }
+        if (value == null) {
+            return Collections.singletonList("");
+        }
+        PsiAnnotationMemberValue[] values = value instanceof PsiArrayInitializerMemberValue
+                ? ((PsiArrayInitializerMemberValue) value).getInitializers() : new PsiAnnotationMemberValue[]{value};
+        if (values.length == 0) {
+            return Collections.singletonList("");
+        }
+        List<String> paths = new ArrayList<>(values.length);
+        for (PsiAnnotationMemberValue pathValue : values) {
+            if (!(pathValue instanceof PsiLiteralExpression) || !(((PsiLiteralExpression) pathValue).getValue() instanceof String)) {
+                return null;
+            }
+            paths.add(AnnotationInfo.normalizePath((String) ((PsiLiteralExpression) pathValue).getValue()));
+        }
+        return paths;
+    }
+
+    private static String getShortName(PsiAnnotation annotation) {
+        PsiJavaCodeReferenceElement reference = annotation.getNameReferenceElement();
+        return reference == null ? null : reference.getReferenceName();
+    }
+}
@@ -0,0 +1,269 @@
+package org.uklin.plugin.api.normal;
+
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.*;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import org.apache.commons.lang.StringUtils;
+import org.uklin.plugin.api.constant.WebAnnotation;
+import org.uklin.plugin.api.yapi.enums.RequestMethodEnum;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 类、方法、字段或参数上的注解信息
+ * <p>
+ * 按注解全名的短名称匹配，只遍历一次注解，结果按元素缓存，PSI修改后失效
+ */
+public class AnnotationInfo {
+
+    public static final AnnotationInfo EMPTY = new AnnotationInfo(PsiAnnotation.EMPTY_ARRAY);
+
+    private static final Set<String> requiredNames = new HashSet<>(Arrays.asList("NotNull", "NotBlank", "NotEmpty", WebAnnotation.PathVariable));
+    private static final Set<String> rangeNames = new HashSet<>(Arrays.asList("Length", "Range", "Size"));
+    private static final Set<String> minNames = new HashSet<>(Arrays.asList("Min", "DecimalMin"));
+    private static final Set<String> maxNames = new HashSet<>(Arrays.asList("Max", "DecimalMax"));
+
+    private boolean required;
+    private String min = "";
+    private String max = "";
+    private boolean requestParam;
+    private String requestParamName;
+    private boolean pathVariable;
+    private String pathVariableName;
+    private boolean requestBody;
+    private boolean responseBody;
+    private boolean controller;
+    private boolean restController;
+    private boolean mapping;
+    private RequestMethodEnum requestMethod;
+    private String mappingPath;
+
+    private AnnotationInfo(PsiAnnotation[] annotations) {
+        for (PsiAnnotation annotation : annotations) {
+            String name = getShortName(annotation);
+            if (name == null) {
+                continue;
+            }
+            if (requiredNames.contains(name)) {
+                required = true;
+            }
+            if (rangeNames.contains(name)) {
+                min = firstNotEmpty(min, getValueText(annotation, "min"));
+                max = firstNotEmpty(max, getValueText(annotation, "max"));
+            } else if (minNames.contains(name)) {
+                min = firstNotEmpty(min, getValueText(annotation, "value"));
+            } else if (maxNames.contains(name)) {
+                max = firstNotEmpty(max, getValueText(annotation, "value"));
+            }
+            switch (name) {
+                case WebAnnotation.RequestParam:
+                    requestParam = true;
+                    requestParamName = getStringValue(annotation, "value", "name");
+                    PsiAnnotationMemberValue requiredValue = annotation.findDeclaredAttributeValue("required");
+                    if (requiredValue == null || !Boolean.FALSE.equals(computeConstant(requiredValue))) {
+                        required = true;
+                    }
+                    break;
+                case WebAnnotation.PathVariable:
+                    pathVariable = true;
+                    pathVariableName = getStringValue(annotation, "value", "name");
+                    break;
+                case WebAnnotation.RequestBody:
+                    requestBody = true;
+                    break;
+                case WebAnnotation.ResponseBody:
+                    responseBody = true;
+                    break;
+                case WebAnnotation.RestController:
+                    restController = true;
+                    controller = true;
+                    break;
+                case WebAnnotation.Controller:
+                    controller = true;
+                    break;
+                case WebAnnotation.RequestMapping:
+                    setMapping(getRequestMethod(annotation), annotation);
+                    break;
+                case WebAnnotation.GetMapping:
+                    setMapping(RequestMethodEnum.GET, annotation);
+                    break;
+                case WebAnnotation.PostMapping:
+                    setMapping(RequestMethodEnum.POST, annotation);
+                    break;
+                case WebAnnotation.PutMapping:
+                    setMapping(RequestMethodEnum.PUT, annotation);
+                    break;
+                case WebAnnotation.DeleteMapping:
+                    setMapping(RequestMethodEnum.DELETE, annotation);
+                    break;
+                case WebAnnotation.PatchMapping:
+                    setMapping(RequestMethodEnum.PATCH, annotation);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 元素上的注解信息，同一元素在PSI未修改前只解析一次
+     */
+    public static AnnotationInfo of(PsiModifierListOwner owner) {
+        if (owner == null) {
+            return EMPTY;
+        }
+        return CachedValuesManager.getCachedValue(owner, () -> {
+            PsiModifierList modifierList = owner.getModifierList();
+            AnnotationInfo info = modifierList == null ? EMPTY : new AnnotationInfo(modifierList.getAnnotations());
+            return CachedValueProvider.Result.create(info, PsiModificationTracker.MODIFICATION_COUNT);
+        });
+    }
+
+    public boolean isRequired() {
+        return required;
+    }
+
+    /**
+     * 值域，没有长度或大小限制时为N/A
+     */
+    public String getRange() {
+        if (StringUtils.isEmpty(min) && StringUtils.isEmpty(max)) {
+            return "N/A";
+        }
+        return "[" + min + "," + max + "]";
+    }
+
+    public boolean isRequestParam() {
+        return requestParam;
+    }
+
+    /**
+     * 参数名，优先取@RequestParam中指定的名称
+     */
+    public String getParamName(String name) {
+        return StringUtils.isEmpty(requestParamName) ? name : requestParamName;
+    }
+
+    public boolean isPathVariable() {
+        return pathVariable;
+    }
+
+    /**
+     * 路径参数名，@PathVariable未指定名称时使用参数名
+     */
+    public String getPathVariableName(String name) {
+        return StringUtils.isEmpty(pathVariableName) ? name : pathVariableName;
+    }
+
+    public boolean isRequestBody() {
+        return requestBody;
+    }
+
+    public boolean isResponseBody() {
+        return responseBody;
+    }
+
+    public boolean isController() {
+        return controller;
+    }
+
+    public boolean isRestController() {
+        return restController;
+    }
+
+    public boolean isMapping() {
+        return mapping;
+    }
+
+    public RequestMethodEnum getRequestMethod() {
+        return requestMethod;
+    }
+
+    /**
+     * Mapping注解中的第一个路径，以/开头且不以/结尾，未指定时为空字符串
+     */
+    public String getMappingPath() {
+        return mappingPath == null ? "" : mappingPath;
+    }
+
+    private void setMapping(RequestMethodEnum method, PsiAnnotation annotation) {
+        if (mapping) {
+            return;
+        }
+        mapping = true;
+        requestMethod = method;
+        mappingPath = normalizePath(getStringValue(annotation, "value", "path"));
+    }
+
+    private static RequestMethodEnum getRequestMethod(PsiAnnotation annotation) {
+        PsiAnnotationMemberValue value = firstValue(annotation.findDeclaredAttributeValue("method"));
+        if (value instanceof PsiReferenceExpression) {
+            String methodName = ((PsiReferenceExpression) value).getReferenceName();
+            for (RequestMethodEnum methodEnum : RequestMethodEnum.values()) {
+                if (methodEnum.name().equals(methodName)) {
+                    return methodEnum;
+                }
+            }
+        }
+        return RequestMethodEnum.POST;
+    }
+
+    private static String getShortName(PsiAnnotation annotation) {
+        String qualifiedName = annotation.getQualifiedName();
+        if (qualifiedName != null) {
+            return StringUtil.getShortName(qualifiedName);
+        }
+        PsiJavaCodeReferenceElement reference = annotation.getNameReferenceElement();
+        return reference == null ? null : reference.getReferenceName();
+    }
+
+    private static String getStringValue(PsiAnnotation annotation, String... attributeNames) {
+        for (String attributeName : attributeNames) {
+            PsiAnnotationMemberValue value = firstValue(annotation.findDeclaredAttributeValue(attributeName));
+            if (value == null) {
+                continue;
+            }
+            Object constant = computeConstant(value);
+            if (constant instanceof String && StringUtils.isNotEmpty((String) constant)) {
+                return (String) constant;
+            }
+        }
+        return null;
+    }
+
+    private static String getValueText(PsiAnnotation annotation, String attributeName) {
+        PsiAnnotationMemberValue value = annotation.findAttributeValue(attributeName);
+        return value == null ? "" : value.getText();
+    }
+
+    private static PsiAnnotationMemberValue firstValue(PsiAnnotationMemberValue value) {
+        if (value instanceof PsiArrayInitializerMemberValue) {
+            PsiAnnotationMemberValue[] initializers = ((PsiArrayInitializerMemberValue) value).getInitializers();
+            return initializers.length == 0 ? null : initializers[0];
+        }
+        return value;
+    }
+
+    private static Object computeConstant(PsiAnnotationMemberValue value) {
+        return JavaPsiFacade.getInstance(value.getProject()).getConstantEvaluationHelper().computeConstantExpression(value);
+    }
+
+    private static String firstNotEmpty(String current, String value) {
+        return StringUtils.isEmpty(current) ? value : current;
+    }
+
+    /**
+     * 路径以/开头且不以/结尾，空路径返回空字符串
+     */
+    public static String normalizePath(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return "";
+        }
+        String p = path.startsWith("/") ? path : "/" + path;
+        return p.endsWith("/") ? p.substring(0, p.length() - 1) : p;
+    }
+}
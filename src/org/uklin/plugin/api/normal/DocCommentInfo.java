@@ -0,0 +1,148 @@
+package org.uklin.plugin.api.normal;
+
+import com.intellij.psi.*;
+import com.intellij.psi.javadoc.*;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiTreeUtil;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * 文档注释信息
+ * <p>
+ * 一次遍历注释的PSI元素，取出摘要、@description和@param说明，{@link}通过注释中的引用直接解析。
+ * 结果按注释缓存，PSI修改后失效
+ */
+public class DocCommentInfo {
+
+    public static final DocCommentInfo EMPTY = new DocCommentInfo();
+
+    private static final Pattern LINE_BREAK = Pattern.compile("(?i)</?(br|p|li|ul|ol)\\s*/?>");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private String summary = "";
+    private String description = "";
+    private final Map<String, String> paramDescMap = new HashMap<>();
+    private final List<PsiClass> links = new ArrayList<>();
+
+    private DocCommentInfo() {
+    }
+
+    private DocCommentInfo(PsiDocComment docComment) {
+        List<String> summaryLines = toLines(appendElements(new StringBuilder(), docComment.getDescriptionElements()));
+        this.summary = String.join("\n", summaryLines);
+        String descriptionTag = null;
+        for (PsiDocTag tag : docComment.getTags()) {
+            String tagName = tag.getName();
+            if ("param".equals(tagName)) {
+                PsiDocTagValue valueElement = tag.getValueElement();
+                if (valueElement != null) {
+                    paramDescMap.put(valueElement.getText(), String.join(" ", toLines(appendTagElements(tag))));
+                }
+            } else if (descriptionTag == null && "description".equalsIgnoreCase(tagName)) {
+                descriptionTag = String.join(" ", toLines(appendTagElements(tag)));
+            }
+        }
+        if (descriptionTag != null) {
+            this.description = descriptionTag.startsWith(":") ? descriptionTag.substring(1).trim() : descriptionTag;
+        } else {
+            this.description = String.join(" ", summaryLines);
+        }
+    }
+
+    /**
+     * 注释信息，同一注释在PSI未修改前只解析一次
+     */
+    public static DocCommentInfo of(PsiDocComment docComment) {
+        if (docComment == null) {
+            return EMPTY;
+        }
+        return CachedValuesManager.getCachedValue(docComment, () ->
+                CachedValueProvider.Result.create(new DocCommentInfo(docComment), PsiModificationTracker.MODIFICATION_COUNT));
+    }
+
+    /**
+     * 第一个标签前的注释内容，保留换行
+     */
+    public String getSummary() {
+        return summary;
+    }
+
+    /**
+     * 有@description标签时取标签内容，否则取摘要，合并为一行
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    public String getParamDesc(String paramName) {
+        String desc = paramDescMap.get(paramName);
+        return desc == null ? "" : desc;
+    }
+
+    /**
+     * 注释中{@link}引用的类
+     */
+    public List<PsiClass> getLinks() {
+        return links;
+    }
+
+    private String appendTagElements(PsiDocTag tag) {
+        StringBuilder builder = new StringBuilder();
+        PsiDocTagValue valueElement = tag.getValueElement();
+        for (PsiElement element : tag.getDataElements()) {
+            if (element != valueElement) {
+                appendElement(builder, element);
+                builder.append(' ');
+            }
+        }
+        return builder.toString();
+    }
+
+    private String appendElements(StringBuilder builder, PsiElement[] elements) {
+        for (PsiElement element : elements) {
+            appendElement(builder, element);
+        }
+        return builder.toString();
+    }
+
+    private void appendElement(StringBuilder builder, PsiElement element) {
+        if (element instanceof PsiInlineDocTag) {
+            appendInlineTag(builder, (PsiInlineDocTag) element);
+        } else if (element instanceof PsiWhiteSpace) {
+            builder.append(element.textContains('\n') ? '\n' : ' ');
+        } else {
+            builder.append(element.getText());
+        }
+    }
+
+    private void appendInlineTag(StringBuilder builder, PsiInlineDocTag tag) {
+        String tagName = tag.getName();
+        if ("link".equals(tagName) || "linkplain".equals(tagName)) {
+            PsiJavaCodeReferenceElement reference = PsiTreeUtil.findChildOfType(tag, PsiJavaCodeReferenceElement.class);
+            PsiElement resolved = reference == null ? null : reference.resolve();
+            if (resolved instanceof PsiClass) {
+                links.add((PsiClass) resolved);
+            }
+        }
+        PsiElement[] dataElements = tag.getDataElements();
+        int start = dataElements.length > 1 ? 1 : 0;
+        for (int i = start; i < dataElements.length; i++) {
+            builder.append(dataElements[i].getText());
+        }
+    }
+
+    private static List<String> toLines(String text) {
+        List<String> lines = new ArrayList<>();
+        for (String line : LINE_BREAK.matcher(text).replaceAll("\n").split("\n")) {
+            String trimmed = WHITESPACE.matcher(line).replaceAll(" ").trim();
+            if (!trimmed.isEmpty()) {
+                lines.add(trimmed);
+            }
+        }
+        return lines;
+    }
+}
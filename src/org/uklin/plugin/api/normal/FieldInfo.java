@@ -1,323 +1,100 @@
 package org.uklin.plugin.api.normal;
 
-import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.project.Project;
-import com.intellij.psi.*;
-import com.intellij.psi.impl.source.PsiClassReferenceType;
-import com.intellij.psi.util.PsiUtil;
+import com.intellij.psi.PsiType;
 import lombok.Data;
-import org.apache.commons.lang.StringUtils;
-import org.uklin.plugin.api.config.ApiGeneratorConfig;
 import org.uklin.plugin.api.constant.TypeEnum;
-import org.uklin.plugin.api.constant.WebAnnotation;
 import org.uklin.plugin.api.util.AssertUtils;
-import org.uklin.plugin.api.util.DesUtil;
-import org.uklin.plugin.api.util.FieldUtil;
 
+import java.io.Serializable;
 import java.util.*;
 
+/**
+ * 字段信息
+ * <p>
+ * 创建时从{@link AnnotationInfo}中取出需要的信息，不保留PSI对象，解析完成后可在读操作之外使用
+ */
 @Data
-public class FieldInfo {
+public class FieldInfo implements Serializable {
+    private static final long serialVersionUID = -3315962307713384427L;
 
     private String name;
-    private PsiType psiType;
     private boolean require;
     private String range;
     private String desc;
-    private TypeEnum paramType;
-    private List<FieldInfo> children;
-    private FieldInfo parent;
-    private List<PsiAnnotation> annotations;
-    private Project project;
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        FieldInfo fieldInfo = (FieldInfo) o;
-        return name.equals(fieldInfo.name) &&
-                Objects.equals(parent, fieldInfo.parent);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(name, parent);
-    }
-
-    private static List<String> requiredTexts = Arrays.asList("@NotNull", "@NotBlank", "@NotEmpty", "@PathVariable");
-
-    protected ApiGeneratorConfig config;
+    /**
+     * 是否有@RequestBody注解
+     */
+    private boolean requestBody;
+    /**
+     * @PathVariable对应的路径参数名，没有该注解时为null
+     */
+    private String pathVariable;
+    /**
+     * 字段类型的结构，相同类型的字段共享同一节点
+     */
+    private SchemaNode schema;
 
     public FieldInfo(Project project,PsiType psiType) {
-        this(project,psiType, "", new PsiAnnotation[0]);
+        this(project,psiType, "", AnnotationInfo.EMPTY);
     }
 
-    public FieldInfo(Project project,String name, PsiType psiType, String desc, PsiAnnotation[] annotations) {
-        this.project = project;
-        config = ServiceManager.getService(project,ApiGeneratorConfig.class);
-        RequireAndRange requireAndRange = getRequireAndRange(annotations);
-        String fieldName = getParamName(name, annotations);
-        this.name = fieldName == null ? "N/A" : fieldName;
-        this.psiType = psiType;
-        this.require = requireAndRange.isRequire();
-        this.range = requireAndRange.getRange();
-        this.desc = desc == null ? "" : desc;
-        this.annotations = Arrays.asList(annotations);
-        if (psiType != null) {
-            if (FieldUtil.isNormalType(psiType)) {
-                paramType = TypeEnum.LITERAL;
-            } else if (FieldUtil.isIterableType(psiType)) {
-                paramType = TypeEnum.ARRAY;
-            } else {
-                paramType = TypeEnum.OBJECT;
-            }
-            if (needResolveChildren(psiType)) {
-                this.children = listChildren(this);
-            }
-        } else {
-            paramType = TypeEnum.OBJECT;
-        }
+    public FieldInfo(Project project,String name, PsiType psiType, String desc, AnnotationInfo annotationInfo) {
+        this(SchemaCache.getInstance(project).getNode(psiType), name, desc, annotationInfo);
     }
 
-    public FieldInfo(Project project, FieldInfo parent, String name, PsiType psiType, String desc, PsiAnnotation[] annotations) {
-        this.project = project;
-        config = ServiceManager.getService(project,ApiGeneratorConfig.class);
-       RequireAndRange requireAndRange = getRequireAndRange(annotations);
-        String fieldName = getParamName(name, annotations);
-        this.name = fieldName == null ? "N/A" : fieldName;
-        this.psiType = psiType;
-        this.require = requireAndRange.isRequire();
-        this.range = requireAndRange.getRange();
-        this.desc = desc == null ? "" : desc;
-        this.annotations = Arrays.asList(annotations);
-        this.parent = parent;
-        if (psiType != null) {
-            if (FieldUtil.isNormalType(psiType)) {
-                paramType = TypeEnum.LITERAL;
-            } else if (FieldUtil.isIterableType(psiType)) {
-                paramType = TypeEnum.ARRAY;
-            } else {
-                paramType = TypeEnum.OBJECT;
-            }
-            if (needResolveChildren(parent, psiType)) {
-                this.children = listChildren(this);
-            }
-        } else {
-            paramType = TypeEnum.OBJECT;
-        }
+    public FieldInfo(Project project,PsiType psiType, String desc, AnnotationInfo annotationInfo) {
+        this(project,psiType.getPresentableText(), psiType, desc, annotationInfo);
     }
 
-    public FieldInfo(Project project,PsiType psiType, String desc, PsiAnnotation[] annotations) {
-        this(project,psiType.getPresentableText(), psiType, desc, annotations);
-    }
-
-    private String getParamName(String name, PsiAnnotation[] annotations) {
-        PsiAnnotation requestParamAnnotation = getRequestParamAnnotation(annotations);
-        if (requestParamAnnotation == null) {
-            return name;
-        }
-        PsiNameValuePair[] attributes = requestParamAnnotation.getParameterList().getAttributes();
-        if (attributes.length == 1 && attributes[0].getName() == null) {
-            return attributes[0].getLiteralValue();
-        }
-        for (PsiNameValuePair psiNameValuePair : attributes) {
-            String pairName = psiNameValuePair.getName();
-            if ("value".equals(pairName) || "name".equals(pairName)) {
-                return psiNameValuePair.getLiteralValue();
-            }
-        }
-        return name;
-    }
-
-    private PsiAnnotation getRequestParamAnnotation(PsiAnnotation[] annotations) {
-        for (PsiAnnotation annotation : annotations) {
-            if (annotation.getText().contains(WebAnnotation.RequestParam)) {
-                return annotation;
-            }
-        }
-        return null;
-    }
-
-    private List<FieldInfo> listChildren(FieldInfo fieldInfo) {
-        PsiType psiType = fieldInfo.getPsiType();
-        if (psiType == null) {
-            return new ArrayList<>();
-        }
-        if (FieldUtil.isNormalType(psiType.getPresentableText())) {
-            //基础类或基础包装类没有子域
-            return new ArrayList<>();
-        }
-        List<FieldInfo> fieldInfos = new ArrayList<>();
-        if (psiType instanceof PsiClassReferenceType) {
-            //如果是集合类型
-            if (FieldUtil.isIterableType(psiType)) {
-                PsiType iterableType = PsiUtil.extractIterableTypeParameter(psiType, false);
-                if (iterableType == null || FieldUtil.isNormalType(iterableType.getPresentableText()) || isMapType(iterableType)) {
-                    return new ArrayList<>();
-                }
-                return listChildren(new FieldInfo(fieldInfo.getProject(),fieldInfo, iterableType.getPresentableText(), iterableType, "", new PsiAnnotation[0]));
-            }
-            String typeName = psiType.getPresentableText();
-            if (typeName.startsWith("Map")) {
-                fieldInfos.add(new FieldInfo(project,fieldInfo, typeName, null, "", new PsiAnnotation[0]));
-                return fieldInfos;
-            }
-            if (typeName.contains("<")) {
-                PsiClass outerClass = PsiUtil.resolveClassInType(psiType);
-                assert outerClass != null;
-                PsiType innerType = PsiUtil.substituteTypeParameter(psiType, outerClass, 0, false);
-                for (PsiField outField : outerClass.getAllFields()) {
-                    PsiType type = containGeneric(outField.getType().getPresentableText()) ? innerType : outField.getType();
-                    if (Objects.requireNonNull(config.getState()).excludeFields.contains(outField.getName())) {
-                        continue;
-                    }
-                    fieldInfos.add(new FieldInfo(project,fieldInfo, outField.getName(), type, DesUtil.getDescription(outField.getDocComment()), outField.getAnnotations()));
-                }
-                return fieldInfos;
-            }
-            PsiClass psiClass = PsiUtil.resolveClassInType(psiType);
-            if (psiClass == null) {
-                return new ArrayList<>();
-            }
-            for (PsiField psiField : psiClass.getAllFields()) {
-                if (Objects.requireNonNull(config.getState()).excludeFields.contains(psiField.getName())) {
-                    continue;
-                }
-                fieldInfos.add(new FieldInfo(project,fieldInfo, psiField.getName(), psiField.getType(), DesUtil.getDescription(psiField.getDocComment()), psiField.getAnnotations()));
-            }
-            return fieldInfos;
-        }
-        return new ArrayList<>();
-    }
-
-    private boolean needResolveChildren(PsiType psiType) {
-        PsiClass psiClass = PsiUtil.resolveClassInType(psiType);
-        if(psiClass != null) {
-            if(psiClass.isEnum()) {
-                return false;
-            }
-        }
-        return !isMapType(psiType);
+    FieldInfo(SchemaNode schema, String name, String desc, AnnotationInfo annotationInfo) {
+        String fieldName = annotationInfo.getParamName(name);
+        this.name = fieldName == null ? "N/A" : fieldName.intern();
+        this.schema = schema;
+        this.require = annotationInfo.isRequired();
+        this.range = annotationInfo.getRange();
+        this.desc = desc == null ? "" : desc;
+        this.requestBody = annotationInfo.isRequestBody();
+        this.pathVariable = annotationInfo.isPathVariable() ? annotationInfo.getPathVariableName(this.name).intern() : null;
     }
 
-    private boolean needResolveChildren(FieldInfo parent, PsiType psiType) {
-        if (parent == null) {
-            return true;
-        }
-        PsiClass psiClass = PsiUtil.resolveClassInType(psiType);
-        if(psiClass != null) {
-            if(psiClass.isEnum()) {
-                return false;
-            }
-        }
-        if (isMapType(psiType)) {
-            return false;
-        }
-        Set<PsiType> resolvedTypeSet = new HashSet<>();
-        FieldInfo p = parent;
-        while (p != null) {
-            resolvedTypeSet.add(p.getPsiType());
-            p = p.getParent();
-        }
-        if (TypeEnum.ARRAY.equals(paramType)) {
-            psiType = PsiUtil.extractIterableTypeParameter(psiType, false);
-        }
-        for (PsiType resolvedType : resolvedTypeSet) {
-            if (resolvedType.equals(psiType)) {
-                return false;
-            }
-        }
-        return true;
+    /**
+     * 使用另一个结构节点的副本，其余属性不变
+     */
+    FieldInfo copy(SchemaNode schema) {
+        FieldInfo fieldInfo = new FieldInfo(schema, name, desc, AnnotationInfo.EMPTY);
+        fieldInfo.name = name;
+        fieldInfo.require = require;
+        fieldInfo.range = range;
+        fieldInfo.requestBody = requestBody;
+        fieldInfo.pathVariable = pathVariable;
+        return fieldInfo;
     }
 
-    private boolean isMapType(PsiType psiType) {
-        String presentableText = psiType.getPresentableText();
-        List<String> mapList = Arrays.asList("Map","HashMap","LinkedHashMap","JSONObject");
-        if(mapList.contains(presentableText)) {
-            return true;
-        }
-        return presentableText.startsWith("Map<") || presentableText.startsWith("HashMap<") || presentableText.startsWith("LinkedHashMap<");
+    /**
+     * 示例值
+     */
+    public Object getSample() {
+        return schema.getSample();
     }
 
-    private boolean containGeneric(String str) {
-        for (String generic : FieldUtil.genericList) {
-            if (str.contains(generic)) {
-                return true;
-            }
-        }
-        return false;
+    public String getTypeName() {
+        return schema.getTypeName();
     }
 
-    private RequireAndRange getRequireAndRange(PsiAnnotation[] annotations) {
-        if (annotations.length == 0) {
-            return RequireAndRange.instance();
-        }
-        boolean require = false;
-        String min = "";
-        String max = "";
-        String range = "N/A";
-        for (PsiAnnotation annotation : annotations) {
-            if (isParamRequired(annotation)) {
-                require = true;
-                break;
-            }
-        }
-        for (PsiAnnotation annotation : annotations) {
-            String qualifiedName = annotation.getText();
-            if (qualifiedName.contains("Length") || qualifiedName.contains("Range") || qualifiedName.contains("Size")) {
-                PsiAnnotationMemberValue minValue = annotation.findAttributeValue("min");
-                if (minValue != null) {
-                    min = minValue.getText();
-                    break;
-                }
-            }
-            if (qualifiedName.contains("Min")) {
-                PsiAnnotationMemberValue minValue = annotation.findAttributeValue("value");
-                if (minValue != null) {
-                    min = minValue.getText();
-                    break;
-                }
-            }
-        }
-        for (PsiAnnotation annotation : annotations) {
-            String qualifiedName = annotation.getText();
-            if (qualifiedName.contains("Length") || qualifiedName.contains("Range") || qualifiedName.contains("Size")) {
-                PsiAnnotationMemberValue maxValue = annotation.findAttributeValue("max");
-                if (maxValue != null) {
-                    max = maxValue.getText();
-                    break;
-                }
-            }
-            if (qualifiedName.contains("Max")) {
-                PsiAnnotationMemberValue maxValue = annotation.findAttributeValue("value");
-                if (maxValue != null) {
-                    max = maxValue.getText();
-                    break;
-                }
-            }
-        }
-        if (StringUtils.isNotEmpty(min) || StringUtils.isNotEmpty(max)) {
-            range = "[" + min + "," + max + "]";
-        }
-        return new RequireAndRange(require, range);
+    public TypeEnum getParamType() {
+        return schema.getParamType();
     }
 
-    private boolean isParamRequired(PsiAnnotation annotation) {
-        String annotationText = annotation.getText();
-        if (annotationText.contains(WebAnnotation.RequestParam)) {
-            PsiNameValuePair[] psiNameValuePairs = annotation.getParameterList().getAttributes();
-            for (PsiNameValuePair psiNameValuePair : psiNameValuePairs) {
-                if ("required".equals(psiNameValuePair.getName()) && "false".equals(psiNameValuePair.getLiteralValue())) {
-                    return false;
-                }
-            }
-            return true;
-        }
-        return requiredTexts.contains(annotationText.split("\\(")[0]);
+    /**
+     * 字段类型的全部子字段，不考虑循环引用，遍历时应通过{@link SchemaPath#childrenOf(FieldInfo)}获取
+     */
+    public List<FieldInfo> getChildren() {
+        return schema.getChildren();
     }
 
     public boolean hasChildren() {
-        return AssertUtils.isNotEmpty(children);
+        return AssertUtils.isNotEmpty(getChildren());
     }
 
 }
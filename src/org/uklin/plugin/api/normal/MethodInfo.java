@@ -4,16 +4,18 @@ import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiMethod;
 import com.intellij.psi.PsiParameter;
 import com.intellij.psi.PsiType;
-import com.intellij.psi.javadoc.PsiDocComment;
-import com.intellij.psi.javadoc.PsiDocTag;
 import com.intellij.psi.util.PsiUtil;
 import lombok.Data;
-import org.apache.commons.lang.StringUtils;
-import org.uklin.plugin.api.util.YApiUtil;
+import org.uklin.plugin.api.yapi.enums.RequestMethodEnum;
 
 import java.io.Serializable;
 import java.util.*;
 
+/**
+ * 方法信息
+ * <p>
+ * 在读操作内创建，创建完成后请求和返回字段已按预解析层数解析，不再持有PSI对象，生成文档和上传时可在读操作之外使用
+ */
 @Data
 public class MethodInfo implements Serializable {
     private static final long serialVersionUID = -9143203778013000538L;
@@ -27,11 +29,32 @@ public class MethodInfo implements Serializable {
     private List<FieldInfo> requestFields;
     private List<FieldInfo> responseFields;
     private FieldInfo response;
+    /**
+     * 所在类是否有@Controller或@RestController注解
+     */
+    private boolean controller;
+    /**
+     * 类和方法上Mapping注解合并后的请求路径
+     */
+    private String path;
+    private RequestMethodEnum requestMethod;
+    /**
+     * 是否以JSON返回结果
+     */
+    private boolean responseBody;
+    /**
+     * 类注释的第一段，用作接口分类名
+     */
+    private String classCatName;
+    /**
+     * 不含方法体的方法声明
+     */
+    private String signature;
 
-    private List<String> excludeParamTypes = Arrays.asList("RedirectAttributes", "HttpServletRequest", "HttpServletResponse");
+    private static final List<String> excludeParamTypes = Arrays.asList("RedirectAttributes", "HttpServletRequest", "HttpServletResponse");
 
     public MethodInfo(PsiMethod psiMethod) {
-        this.setDesc(YApiUtil.getFirstAndLastChar(psiMethod));
+        this.setDesc(DocCommentInfo.of(psiMethod.getDocComment()).getSummary());
         PsiClass psiClass = psiMethod.getContainingClass();
         if (psiClass == null) {
             return;
@@ -44,15 +67,17 @@ public class MethodInfo implements Serializable {
         }
         this.setParamStr(psiMethod.getParameterList().getText());
         this.setMethodName(psiMethod.getName());
-        this.setRequestFields(listParamFieldInfos(psiMethod));
-        FieldInfo fieldInfo = new FieldInfo(psiMethod.getProject(), psiMethod.getReturnType());
-        this.response = fieldInfo;
-        this.setResponseFields(fieldInfo.getChildren());
+        List<FieldInfo> roots = listParamFieldInfos(psiMethod);
+        roots.add(new FieldInfo(psiMethod.getProject(), psiMethod.getReturnType()));
+        List<FieldInfo> detached = SchemaCache.getInstance(psiMethod.getProject()).detach(roots);
+        this.setRequestFields(new ArrayList<>(detached.subList(0, detached.size() - 1)));
+        this.response = detached.get(detached.size() - 1);
+        this.setResponseFields(response.getChildren());
     }
 
     private List<FieldInfo> listParamFieldInfos(PsiMethod psiMethod) {
         List<FieldInfo> fieldInfoList = new ArrayList<>();
-        Map<String, String> paramNameDescMap = getParamDescMap(psiMethod.getDocComment());
+        DocCommentInfo docCommentInfo = DocCommentInfo.of(psiMethod.getDocComment());
         PsiParameter[] psiParameters = psiMethod.getParameterList().getParameters();
         for (PsiParameter psiParameter : psiParameters) {
             PsiType psiType = psiParameter.getType();
@@ -63,34 +88,11 @@ public class MethodInfo implements Serializable {
                     psiMethod.getProject(),
                     psiParameter.getName(),
                     psiType,
-                    paramNameDescMap.get(psiParameter.getName()),
-                    psiParameter.getAnnotations()
+                    docCommentInfo.getParamDesc(psiParameter.getName()),
+                    AnnotationInfo.of(psiParameter)
             );
             fieldInfoList.add(fieldInfo);
         }
         return fieldInfoList;
     }
-
-    private Map<String, String> getParamDescMap(PsiDocComment docComment) {
-        Map<String, String> paramDescMap = new HashMap<>();
-        if (docComment == null) {
-            return paramDescMap;
-        }
-        for (PsiDocTag docTag : docComment.getTags()) {
-            String tagValue = docTag.getValueElement() == null ? "" : docTag.getValueElement().getText();
-            if ("param".equals(docTag.getName()) && StringUtils.isNotEmpty(tagValue)) {
-                paramDescMap.put(tagValue, YApiUtil.getParamDesc(docTag.getText()));
-            }
-        }
-        return paramDescMap;
-    }
-
-    private String getParamDesc(String tagText) {
-        String[] strings = tagText.replace("*", "").trim().split(" ");
-        if (strings.length == 3) {
-            String desc = strings[2];
-            return desc.replace("\n", "");
-        }
-        return "";
-    }
 }
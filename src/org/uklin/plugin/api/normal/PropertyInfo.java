@@ -0,0 +1,101 @@
+package org.uklin.plugin.api.normal;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiModifier;
+import com.intellij.psi.PsiType;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import org.uklin.plugin.api.config.ApiGeneratorConfig;
+import org.uklin.plugin.api.config.FieldExcludeMatcher;
+
+import java.util.*;
+
+/**
+ * 类中需要生成文档的属性
+ * <p>
+ * 包含父类中的属性，已去掉静态属性和{@link FieldExcludeMatcher}排除的属性。
+ * 每个类只解析一次，结果按类缓存，PSI或配置修改后失效
+ */
+public class PropertyInfo {
+
+    private final PsiField field;
+    private final String name;
+    private final String desc;
+    private final AnnotationInfo annotationInfo;
+
+    private PropertyInfo(PsiField field) {
+        this.field = field;
+        this.name = field.getName();
+        this.desc = DocCommentInfo.of(field.getDocComment()).getDescription();
+        this.annotationInfo = AnnotationInfo.of(field);
+    }
+
+    /**
+     * 类的全部属性，子类中的同名属性覆盖父类属性
+     */
+    public static List<PropertyInfo> listProperties(PsiClass psiClass) {
+        ApiGeneratorConfig config = ServiceManager.getService(psiClass.getProject(), ApiGeneratorConfig.class);
+        return CachedValuesManager.getCachedValue(psiClass, () -> CachedValueProvider.Result.create(
+                createProperties(psiClass, config), PsiModificationTracker.MODIFICATION_COUNT, config.getModificationTracker()));
+    }
+
+    private static List<PropertyInfo> createProperties(PsiClass psiClass, ApiGeneratorConfig config) {
+        FieldExcludeMatcher excludeMatcher = Objects.requireNonNull(config.getState()).getExcludeMatcher();
+        Set<String> names = new HashSet<>();
+        List<PropertyInfo> properties = new ArrayList<>();
+        for (PsiField psiField : psiClass.getAllFields()) {
+            if (psiField.hasModifierProperty(PsiModifier.STATIC) || excludeMatcher.isExcluded(psiField.getName(), getTypeNames(psiClass, psiField))) {
+                continue;
+            }
+            if (names.add(psiField.getName())) {
+                properties.add(new PropertyInfo(psiField));
+            }
+        }
+        return Collections.unmodifiableList(properties);
+    }
+
+    /**
+     * 排除规则中可以使用的类名，包括当前类和声明字段的类的简单类名和全名
+     */
+    private static List<String> getTypeNames(PsiClass psiClass, PsiField psiField) {
+        List<String> typeNames = new ArrayList<>(4);
+        addTypeNames(typeNames, psiClass);
+        PsiClass containingClass = psiField.getContainingClass();
+        if (containingClass != null && containingClass != psiClass) {
+            addTypeNames(typeNames, containingClass);
+        }
+        return typeNames;
+    }
+
+    private static void addTypeNames(List<String> typeNames, PsiClass psiClass) {
+        if (psiClass.getName() != null) {
+            typeNames.add(psiClass.getName());
+        }
+        if (psiClass.getQualifiedName() != null) {
+            typeNames.add(psiClass.getQualifiedName());
+        }
+    }
+
+    public PsiField getField() {
+        return field;
+    }
+
+    public PsiType getType() {
+        return field.getType();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+
+    public AnnotationInfo getAnnotationInfo() {
+        return annotationInfo;
+    }
+}
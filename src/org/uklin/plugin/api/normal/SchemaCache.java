@@ -0,0 +1,302 @@
+package org.uklin.plugin.api.normal;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.util.InheritanceUtil;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.PsiUtil;
+import com.intellij.psi.util.PsiUtilCore;
+import com.intellij.psi.util.TypeConversionUtil;
+import org.uklin.plugin.api.config.ApiGeneratorConfig;
+import org.uklin.plugin.api.constant.TypeEnum;
+import org.uklin.plugin.api.constant.TypeKind;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 类型结构缓存
+ * <p>
+ * 以完全替换泛型后的类型全名为key，每个类型只创建一个{@link SchemaNode}，
+ * 同一DTO在多个字段、多个方法里重复出现时共享同一子结构。任意PSI修改后整体失效。
+ */
+public class SchemaCache {
+
+    private static final ThreadLocal<Set<String>> creatingArrayTypes = ThreadLocal.withInitial(HashSet::new);
+
+    private final Project project;
+    private final SchemaNode unknownNode;
+    private final Map<String, SchemaNode> nodeCache = new ConcurrentHashMap<>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private volatile long modificationCount = -1;
+
+    public SchemaCache(Project project) {
+        this.project = project;
+        this.unknownNode = new SchemaNode(this, null, "Object", null, TypeEnum.OBJECT, null, "");
+    }
+
+    public static SchemaCache getInstance(Project project) {
+        return ServiceManager.getService(project, SchemaCache.class);
+    }
+
+    /**
+     * 获取类型对应的结构节点
+     *
+     * @param psiType 类型，为null时返回不含子字段的Object节点
+     */
+    public SchemaNode getNode(PsiType psiType) {
+        psiType = psiType == null ? null : TypeClassifier.getInstance(project).unwrap(psiType);
+        if (psiType == null) {
+            return unknownNode;
+        }
+        checkModificationCount();
+        String typeKey = psiType.getCanonicalText();
+        SchemaNode node = nodeCache.get(typeKey);
+        if (node != null) {
+            hitCount.incrementAndGet();
+            return node;
+        }
+        missCount.incrementAndGet();
+        node = createNode(typeKey, psiType);
+        SchemaNode existNode = nodeCache.putIfAbsent(typeKey, node);
+        return existNode == null ? node : existNode;
+    }
+
+    /**
+     * 复制字段可达的类型结构，副本不持有PsiType，之后遍历副本不需要读操作
+     * <p>
+     * 按广度优先复制，只解析生成文档时可能用到的部分：根字段的类型为第0层，
+     * 第{@link ApiGeneratorConfig#prefetchDepth}层（不超过{@link ApiGeneratorConfig#maxDepth}）及更深的类型不解析子字段，
+     * 每个对象只解析前{@link ApiGeneratorConfig#maxProperties}个属性的类型，
+     * 最多复制{@link ApiGeneratorConfig#maxNodes}个类型，未解析的类型在副本中标记为截断。
+     * 是否截断只取决于本次复制的顺序和计数，与缓存中的节点是否已被其它方法解析无关。
+     * 缓存中的节点只会被解析，不会被截断，不影响其它方法的结果；同一次复制中相同类型共享同一副本
+     *
+     * @return 与roots一一对应的字段副本
+     */
+    public List<FieldInfo> detach(List<FieldInfo> roots) {
+        ApiGeneratorConfig config = Objects.requireNonNull(ServiceManager.getService(project, ApiGeneratorConfig.class).getState());
+        int maxLevel = Math.min(config.prefetchDepth, config.maxDepth);
+        String levelTruncation = config.prefetchDepth < config.maxDepth
+                ? "超过预解析层数" + config.prefetchDepth + "，已截断"
+                : "超过最大深度" + config.maxDepth + "，已截断";
+        Map<SchemaNode, SchemaNode> copies = new IdentityHashMap<>();
+        Map<SchemaNode, Integer> levels = new IdentityHashMap<>();
+        Deque<SchemaNode> queue = new ArrayDeque<>();
+        List<FieldInfo> result = new ArrayList<>(roots.size());
+        for (FieldInfo root : roots) {
+            result.add(root == null ? null : root.copy(copyOf(root.getSchema(), 0, copies, levels, queue)));
+        }
+        int nodeCount = 0;
+        while (!queue.isEmpty()) {
+            SchemaNode node = queue.poll();
+            SchemaNode copy = copies.get(node);
+            if (node.getItems() != null) {
+                //集合类型的子字段取自元素节点的副本
+                continue;
+            }
+            int level = levels.get(node);
+            if (level >= maxLevel) {
+                copy.setDetachedChildren(null, levelTruncation, node.getSourceFiles());
+                continue;
+            }
+            if (++nodeCount > config.maxNodes) {
+                copy.setDetachedChildren(null, "超过最大节点数" + config.maxNodes + "，已截断", node.getSourceFiles());
+                continue;
+            }
+            List<FieldInfo> children = node.getChildren();
+            List<FieldInfo> childCopies = null;
+            if (children != null) {
+                childCopies = new ArrayList<>(children.size());
+                for (int i = 0; i < children.size(); i++) {
+                    FieldInfo child = children.get(i);
+                    //超出属性数的字段不会输出，不解析其类型
+                    SchemaNode childCopy = i < config.maxProperties
+                            ? copyOf(child.getSchema(), level + 1, copies, levels, queue)
+                            : omitted(child.getSchema());
+                    childCopies.add(child.copy(childCopy));
+                }
+            }
+            copy.setDetachedChildren(childCopies, null, node.getSourceFiles());
+        }
+        return result;
+    }
+
+    private static SchemaNode copyOf(SchemaNode node, int level, Map<SchemaNode, SchemaNode> copies, Map<SchemaNode, Integer> levels, Deque<SchemaNode> queue) {
+        SchemaNode copy = copies.get(node);
+        if (copy == null) {
+            copy = new SchemaNode(node, node.getItems() == null ? null : copyOf(node.getItems(), level, copies, levels, queue));
+            copies.put(node, copy);
+            levels.put(node, level);
+            queue.add(node);
+        }
+        return copy;
+    }
+
+    /**
+     * 不输出的字段的副本，只保留类型名等基本信息
+     */
+    private static SchemaNode omitted(SchemaNode node) {
+        SchemaNode copy = new SchemaNode(node, null);
+        copy.setDetachedChildren(null, "超过最大属性数，已省略", Collections.emptySet());
+        return copy;
+    }
+
+    public void clear() {
+        nodeCache.clear();
+    }
+
+    /**
+     * 项目打开以来命中缓存的次数
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * 项目打开以来未命中缓存、新建节点的次数
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private SchemaNode createNode(String typeKey, PsiType psiType) {
+        TypeClassifier classifier = TypeClassifier.getInstance(project);
+        TypeKind kind = classifier.classify(psiType);
+        SchemaNode items = null;
+        if (kind == TypeKind.ARRAY) {
+            PsiType itemType = classifier.getItemType(psiType);
+            if (itemType != null) {
+                items = getItemNode(typeKey, itemType);
+            }
+        }
+        //只有普通对象需要解析子字段，枚举、Map和基础类型不展开
+        PsiType childrenType = kind == TypeKind.OBJECT ? psiType : null;
+        SchemaNode node = new SchemaNode(this, typeKey, psiType.getPresentableText(), childrenType, kind.getTypeEnum(), items, classifier.getSample(psiType));
+        //分类取决于类及其父类、接口，枚举的示例值取自第一个枚举值
+        Set<String> sourceFiles = new HashSet<>();
+        PsiClass psiClass = PsiUtil.resolveClassInType(psiType);
+        if (psiClass != null) {
+            addTypeFiles(sourceFiles, psiClass);
+        }
+        node.setSourceFiles(sourceFiles);
+        return node;
+    }
+
+    /**
+     * 元素类型的节点，集合类型的元素是自身时（如class Tree extends ArrayList&lt;Tree&gt;）返回Object节点
+     */
+    private SchemaNode getItemNode(String typeKey, PsiType itemType) {
+        Set<String> creatingTypes = creatingArrayTypes.get();
+        if (!creatingTypes.add(typeKey)) {
+            return unknownNode;
+        }
+        try {
+            return getNode(itemType);
+        } finally {
+            creatingTypes.remove(typeKey);
+        }
+    }
+
+    /**
+     * 解析非集合类型的子字段，由{@link SchemaNode#getChildren()}在首次访问时调用
+     * <p>
+     * 字段类型按当前类型的泛型参数替换，父类中声明的字段按父类的泛型参数替换，
+     * 使用原始类型时泛型字段取擦除后的类型
+     *
+     * @param sourceFiles 收集当前类和声明属性的类所在的文件
+     */
+    List<FieldInfo> listChildren(PsiType psiType, Set<String> sourceFiles) {
+        List<FieldInfo> fieldInfos = new ArrayList<>();
+        if (!(psiType instanceof PsiClassType)) {
+            return fieldInfos;
+        }
+        PsiClassType.ClassResolveResult resolveResult = ((PsiClassType) psiType).resolveGenerics();
+        PsiClass psiClass = resolveResult.getElement();
+        if (psiClass == null) {
+            return fieldInfos;
+        }
+        PsiSubstitutor substitutor = resolveResult.getSubstitutor();
+        Map<PsiClass, PsiSubstitutor> superSubstitutors = new HashMap<>();
+        addSourceFile(sourceFiles, psiClass);
+        for (PropertyInfo property : PropertyInfo.listProperties(psiClass)) {
+            addSourceFile(sourceFiles, property.getField());
+            PsiType type = substitute(psiClass, substitutor, superSubstitutors, property.getField());
+            fieldInfos.add(new FieldInfo(getNode(type), property.getName(), property.getDesc(), property.getAnnotationInfo()));
+        }
+        return fieldInfos;
+    }
+
+    /**
+     * 字段可达的全部类型所依赖的文件
+     */
+    public static Set<String> collectSourceFiles(Collection<FieldInfo> roots) {
+        Set<String> sourceFiles = new HashSet<>();
+        Set<SchemaNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<SchemaNode> queue = new ArrayDeque<>();
+        for (FieldInfo root : roots) {
+            if (root != null) {
+                queue.add(root.getSchema());
+            }
+        }
+        while (!queue.isEmpty()) {
+            SchemaNode node = queue.poll();
+            if (!visited.add(node)) {
+                continue;
+            }
+            sourceFiles.addAll(node.getSourceFiles());
+            if (node.getItems() != null) {
+                queue.add(node.getItems());
+            } else if (!node.isPending() && node.getChildren() != null) {
+                for (FieldInfo child : node.getChildren()) {
+                    queue.add(child.getSchema());
+                }
+            }
+        }
+        return sourceFiles;
+    }
+
+    /**
+     * 类及其全部父类、接口所在的文件，JDK中的类不会变化，不记录
+     */
+    private static void addTypeFiles(Set<String> sourceFiles, PsiClass psiClass) {
+        addSourceFile(sourceFiles, psiClass);
+        for (PsiClass superClass : InheritanceUtil.getSuperClasses(psiClass)) {
+            String qualifiedName = superClass.getQualifiedName();
+            if (qualifiedName == null || !qualifiedName.startsWith("java.") && !qualifiedName.startsWith("javax.")) {
+                addSourceFile(sourceFiles, superClass);
+            }
+        }
+    }
+
+    private static void addSourceFile(Set<String> sourceFiles, PsiElement element) {
+        VirtualFile file = PsiUtilCore.getVirtualFile(element);
+        if (file != null) {
+            sourceFiles.add(file.getUrl());
+        }
+    }
+
+    private PsiType substitute(PsiClass psiClass, PsiSubstitutor substitutor, Map<PsiClass, PsiSubstitutor> superSubstitutors, PsiField field) {
+        PsiType fieldType = field.getType();
+        PsiClass containingClass = field.getContainingClass();
+        PsiSubstitutor fieldSubstitutor = substitutor;
+        if (containingClass != null && containingClass != psiClass) {
+            fieldSubstitutor = superSubstitutors.computeIfAbsent(containingClass,
+                    superClass -> TypeConversionUtil.getSuperClassSubstitutor(superClass, psiClass, substitutor));
+        }
+        PsiType type = fieldSubstitutor.substitute(fieldType);
+        return type == null ? TypeConversionUtil.erasure(fieldType) : type;
+    }
+
+    private void checkModificationCount() {
+        long count = PsiModificationTracker.SERVICE.getInstance(project).getModificationCount();
+        if (count != modificationCount) {
+            nodeCache.clear();
+            modificationCount = count;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.uklin.plugin.api.normal;
+
+import com.intellij.psi.PsiType;
+import org.uklin.plugin.api.constant.TypeEnum;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 类型结构节点
+ * <p>
+ * 每个完全替换泛型后的类型只对应一个节点，由{@link SchemaCache}统一创建，多个字段引用同一类型时共享同一子结构。
+ * 节点不记录父节点，循环引用由遍历方通过{@link SchemaPath}判断。
+ * <p>
+ * 节点只在解析子字段前持有PsiType，解析完成后即释放，之后只包含类型名、示例值等普通数据，可在读操作之外使用。
+ */
+public class SchemaNode implements Serializable {
+    private static final long serialVersionUID = 2410597735870416529L;
+
+    private final String typeKey;
+    private final String typeName;
+    private final TypeEnum paramType;
+    /**
+     * 集合类型的元素节点，非集合类型为null
+     */
+    private final SchemaNode items;
+    /**
+     * 示例值
+     */
+    private final Object sample;
+
+    private transient SchemaCache schemaCache;
+    /**
+     * 待解析子字段的类型，枚举、Map或已解析完成时为null
+     */
+    private transient PsiType psiType;
+    private volatile boolean childrenResolved;
+    /**
+     * 子字段因超出限制未复制时的原因，只有副本会被截断
+     */
+    private volatile String truncation;
+    private List<FieldInfo> children;
+    /**
+     * 声明该类型、其父类和接口以及属性的文件URL，类型的分类和结构随这些文件变化
+     */
+    private transient Set<String> sourceFiles = Collections.emptySet();
+
+    SchemaNode(SchemaCache schemaCache, String typeKey, String typeName, PsiType psiType, TypeEnum paramType, SchemaNode items, Object sample) {
+        this.schemaCache = schemaCache;
+        this.typeKey = typeKey;
+        this.typeName = typeName;
+        this.psiType = psiType;
+        this.paramType = paramType;
+        this.items = items;
+        this.sample = sample;
+    }
+
+    /**
+     * 不持有PsiType的副本，子字段由{@link SchemaCache#detach}填充，集合类型的子字段取自元素副本
+     */
+    SchemaNode(SchemaNode origin, SchemaNode items) {
+        this.sourceFiles = origin.getSourceFiles();
+        this.typeKey = origin.typeKey;
+        this.typeName = origin.typeName;
+        this.paramType = origin.paramType;
+        this.items = items;
+        this.sample = origin.sample;
+    }
+
+    public String getTypeKey() {
+        return typeKey;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+    public TypeEnum getParamType() {
+        return paramType;
+    }
+
+    public SchemaNode getItems() {
+        return items;
+    }
+
+    public Object getSample() {
+        return sample;
+    }
+
+    /**
+     * 子字段是否被截断，集合类型取元素节点的截断标记
+     */
+    public boolean isTruncated() {
+        return getTruncation() != null;
+    }
+
+    /**
+     * 截断原因，未截断时为null
+     */
+    public String getTruncation() {
+        if (truncation == null && items != null) {
+            return items.getTruncation();
+        }
+        return truncation;
+    }
+
+    /**
+     * 判断循环引用时使用的类型，集合类型取元素类型
+     */
+    public String getCycleKey() {
+        return items == null ? typeKey : items.getTypeKey();
+    }
+
+    /**
+     * 子字段在首次访问时解析，之后所有引用该类型的字段共享同一结果
+     */
+    public List<FieldInfo> getChildren() {
+        if (!childrenResolved) {
+            synchronized (this) {
+                if (!childrenResolved) {
+                    if (items != null) {
+                        children = items.getChildren();
+                    } else if (psiType != null) {
+                        Set<String> files = new HashSet<>(getSourceFiles());
+                        children = schemaCache.listChildren(psiType, files);
+                        sourceFiles = files;
+                    }
+                    release();
+                }
+            }
+        }
+        return children;
+    }
+
+    /**
+     * 类型及已解析的子字段所依赖的文件，未解析时只包含类型本身的文件，反序列化得到的节点为空
+     */
+    public Set<String> getSourceFiles() {
+        return sourceFiles == null ? Collections.emptySet() : sourceFiles;
+    }
+
+    void setSourceFiles(Set<String> sourceFiles) {
+        this.sourceFiles = sourceFiles;
+    }
+
+    /**
+     * 子字段尚未解析，仍持有PsiType
+     */
+    synchronized boolean isPending() {
+        return psiType != null;
+    }
+
+    /**
+     * 设置副本的子字段
+     *
+     * @param truncation 子字段因超出限制未复制时的原因，未截断时为null
+     */
+    synchronized void setDetachedChildren(List<FieldInfo> children, String truncation, Set<String> sourceFiles) {
+        this.children = children;
+        this.truncation = truncation;
+        this.sourceFiles = sourceFiles;
+        release();
+    }
+
+    private void release() {
+        psiType = null;
+        schemaCache = null;
+        childrenResolved = true;
+    }
+}
@@ -0,0 +1,134 @@
+package org.uklin.plugin.api.normal;
+
+import org.uklin.plugin.api.config.ApiGeneratorConfig;
+import org.uklin.plugin.api.constant.TypeEnum;
+
+import java.util.*;
+
+/**
+ * 遍历{@link SchemaNode}时的路径上下文
+ * <p>
+ * 记录从根字段到当前字段经过的所有类型，字段类型已出现在路径上时视为循环引用，不再展开。
+ * 同时按配置限制遍历的深度、节点总数和单个对象的属性数，超出部分以截断标记字段代替。
+ * 路径本身不可变，进入子字段时生成指向上一层的新路径，只记录本层新增的类型；节点计数在同一次遍历的所有路径间共享。
+ */
+public class SchemaPath {
+
+    public static final String TRUNCATION_NAME = "...";
+
+    private static final SchemaNode TRUNCATION_NODE = new SchemaNode(null, null, "-", null, TypeEnum.LITERAL, null, "");
+
+    private final SchemaPath parent;
+    private final List<String> types;
+    private final int depth;
+    private final Budget budget;
+
+    private SchemaPath(SchemaPath parent, List<String> types, int depth, Budget budget) {
+        this.parent = parent;
+        this.types = types;
+        this.depth = depth;
+        this.budget = budget;
+    }
+
+    /**
+     * 新的一次遍历
+     */
+    public static SchemaPath root(ApiGeneratorConfig config) {
+        return new SchemaPath(null, Collections.emptyList(), 0, new Budget(config.maxDepth, config.maxNodes, config.maxProperties));
+    }
+
+    public static boolean isTruncation(FieldInfo fieldInfo) {
+        return fieldInfo.getSchema() == TRUNCATION_NODE;
+    }
+
+    /**
+     * 字段在当前路径下的子字段，超出限制时末尾追加截断标记
+     *
+     * @return 字段类型已出现在路径上时返回null
+     */
+    public List<FieldInfo> childrenOf(FieldInfo fieldInfo) {
+        String cycleKey = fieldInfo.getSchema().getCycleKey();
+        if (cycleKey != null && contains(cycleKey)) {
+            return null;
+        }
+        if (fieldInfo.getSchema().isTruncated()) {
+            return Collections.singletonList(truncation(fieldInfo.getSchema().getTruncation()));
+        }
+        List<FieldInfo> children = fieldInfo.getChildren();
+        if (children == null || children.isEmpty()) {
+            return children;
+        }
+        if (depth >= budget.maxDepth) {
+            return Collections.singletonList(truncation("超过最大深度" + budget.maxDepth + "，已截断"));
+        }
+        int remainNodes = budget.maxNodes - budget.nodeCount;
+        if (remainNodes <= 0) {
+            return Collections.singletonList(truncation("超过最大节点数" + budget.maxNodes + "，已截断"));
+        }
+        int limit = Math.min(Math.min(children.size(), budget.maxProperties), remainNodes);
+        budget.nodeCount += limit;
+        if (limit == children.size()) {
+            return children;
+        }
+        List<FieldInfo> result = new ArrayList<>(children.subList(0, limit));
+        if (limit == remainNodes) {
+            result.add(truncation("超过最大节点数" + budget.maxNodes + "，已截断"));
+        } else {
+            result.add(truncation("省略其余" + (children.size() - limit) + "个属性"));
+        }
+        return result;
+    }
+
+    /**
+     * 进入字段后的路径，集合类型会同时记录各层元素类型
+     */
+    public SchemaPath enter(FieldInfo fieldInfo) {
+        List<String> enterTypes = null;
+        for (SchemaNode node = fieldInfo.getSchema(); node != null; node = node.getItems()) {
+            String typeKey = node.getTypeKey();
+            if (typeKey == null || contains(typeKey) || (enterTypes != null && enterTypes.contains(typeKey))) {
+                continue;
+            }
+            if (enterTypes == null) {
+                enterTypes = new ArrayList<>(2);
+            }
+            enterTypes.add(typeKey);
+        }
+        if (enterTypes == null) {
+            return new SchemaPath(parent, types, depth + 1, budget);
+        }
+        return new SchemaPath(this, enterTypes, depth + 1, budget);
+    }
+
+    /**
+     * 类型是否已出现在路径上
+     */
+    private boolean contains(String typeKey) {
+        for (SchemaPath path = this; path != null; path = path.parent) {
+            if (path.types.contains(typeKey)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static FieldInfo truncation(String reason) {
+        return new FieldInfo(TRUNCATION_NODE, TRUNCATION_NAME, reason, AnnotationInfo.EMPTY);
+    }
+
+    /**
+     * 一次遍历的限制和已使用的节点数
+     */
+    private static class Budget {
+        private final int maxDepth;
+        private final int maxNodes;
+        private final int maxProperties;
+        private int nodeCount;
+
+        private Budget(int maxDepth, int maxNodes, int maxProperties) {
+            this.maxDepth = maxDepth;
+            this.maxNodes = maxNodes;
+            this.maxProperties = maxProperties;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package org.uklin.plugin.api.normal;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.*;
+import com.intellij.psi.util.InheritanceUtil;
+import com.intellij.psi.util.PsiUtil;
+import org.uklin.plugin.api.constant.TypeKind;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 类型分类
+ * <p>
+ * 根据解析出的类及其父类、接口判断类型属于基础类型、枚举、集合、Map还是普通对象，
+ * 结果按类全名缓存，项目关闭前一直有效
+ */
+public class TypeClassifier {
+
+    /**
+     * 基础类型的示例值，key为类全名或基本类型名
+     */
+    private static final Map<String, Object> samples = new HashMap<>();
+
+    /**
+     * 分类规则和示例值的版本，修改后保存的解析结果失效
+     */
+    public static final int RULES_VERSION = 1;
+
+    private static final String STRING_SAMPLE = "@string";
+    private static final String DATE_TIME_SAMPLE = "2020-01-01 00:00:00";
+
+    private final Map<String, TypeKind> kindCache = new ConcurrentHashMap<>();
+
+    static {
+        samples.put("int", 1);
+        samples.put("boolean", false);
+        samples.put("byte", 1);
+        samples.put("short", 1);
+        samples.put("long", 1L);
+        samples.put("float", 1.0F);
+        samples.put("double", 1.0D);
+        samples.put("char", 'a');
+        samples.put(CommonClassNames.JAVA_LANG_BOOLEAN, false);
+        samples.put(CommonClassNames.JAVA_LANG_BYTE, 0);
+        samples.put(CommonClassNames.JAVA_LANG_SHORT, (short) 0);
+        samples.put(CommonClassNames.JAVA_LANG_INTEGER, 0);
+        samples.put(CommonClassNames.JAVA_LANG_LONG, 0L);
+        samples.put(CommonClassNames.JAVA_LANG_FLOAT, 0.0F);
+        samples.put(CommonClassNames.JAVA_LANG_DOUBLE, 0.0D);
+        samples.put(CommonClassNames.JAVA_LANG_CHARACTER, 'a');
+        samples.put(CommonClassNames.JAVA_LANG_STRING, STRING_SAMPLE);
+        samples.put(CommonClassNames.JAVA_UTIL_DATE, new Date().getTime());
+        samples.put("java.math.BigDecimal", 0.111111);
+        samples.put("java.math.BigInteger", 0);
+        samples.put("java.time.LocalDateTime", DATE_TIME_SAMPLE);
+        samples.put("java.time.LocalDate", "2020-01-01");
+        samples.put("java.time.LocalTime", "00:00:00");
+    }
+
+    public static TypeClassifier getInstance(Project project) {
+        return ServiceManager.getService(project, TypeClassifier.class);
+    }
+
+    /**
+     * 去掉通配符和Optional，返回实际描述数据的类型
+     */
+    public PsiType unwrap(PsiType psiType) {
+        PsiType type = psiType;
+        while (true) {
+            if (type instanceof PsiWildcardType) {
+                type = ((PsiWildcardType) type).getExtendsBound();
+            } else if (type instanceof PsiClassType && isOptional((PsiClassType) type)) {
+                type = ((PsiClassType) type).getParameters()[0];
+            } else {
+                return type;
+            }
+        }
+    }
+
+    public TypeKind classify(PsiType psiType) {
+        if (PsiType.VOID.equals(psiType)) {
+            return TypeKind.OBJECT;
+        }
+        if (psiType instanceof PsiPrimitiveType) {
+            return TypeKind.LITERAL;
+        }
+        if (psiType instanceof PsiArrayType) {
+            return TypeKind.ARRAY;
+        }
+        PsiClass psiClass = PsiUtil.resolveClassInType(psiType);
+        if (psiClass == null) {
+            return psiType != null && samples.containsKey(psiType.getCanonicalText()) ? TypeKind.LITERAL : TypeKind.OBJECT;
+        }
+        return classify(psiClass);
+    }
+
+    public TypeKind classify(PsiClass psiClass) {
+        String qualifiedName = psiClass.getQualifiedName();
+        if (qualifiedName == null) {
+            return computeKind(psiClass, null);
+        }
+        TypeKind kind = kindCache.get(qualifiedName);
+        if (kind == null) {
+            kind = computeKind(psiClass, qualifiedName);
+            kindCache.put(qualifiedName, kind);
+        }
+        return kind;
+    }
+
+    /**
+     * 集合或数组的元素类型
+     *
+     * @return 非集合类型或未指定泛型时为null
+     */
+    public PsiType getItemType(PsiType psiType) {
+        if (psiType instanceof PsiArrayType) {
+            return ((PsiArrayType) psiType).getComponentType();
+        }
+        return PsiUtil.extractIterableTypeParameter(psiType, false);
+    }
+
+    /**
+     * 类型的示例值，枚举取第一个枚举值，基础类型的集合取两个元素值，其余类型为空字符串
+     */
+    public Object getSample(PsiType psiType) {
+        if (psiType == null) {
+            return "";
+        }
+        switch (classify(psiType)) {
+            case LITERAL:
+                return getLiteralSample(psiType);
+            case ENUM:
+                return getEnumSample(PsiUtil.resolveClassInType(psiType));
+            case ARRAY:
+                PsiType itemType = getItemType(psiType);
+                if (itemType == null) {
+                    return "[]";
+                }
+                TypeKind itemKind = classify(unwrap(itemType));
+                if (itemKind == TypeKind.LITERAL || itemKind == TypeKind.ENUM) {
+                    Object itemSample = getSample(unwrap(itemType));
+                    return itemSample + "," + itemSample;
+                }
+                return "";
+            default:
+                return "";
+        }
+    }
+
+    private TypeKind computeKind(PsiClass psiClass, String qualifiedName) {
+        if (psiClass.isEnum()) {
+            return TypeKind.ENUM;
+        }
+        if (qualifiedName != null && samples.containsKey(qualifiedName)) {
+            return TypeKind.LITERAL;
+        }
+        if (InheritanceUtil.isInheritor(psiClass, CommonClassNames.JAVA_LANG_CHAR_SEQUENCE)
+                || InheritanceUtil.isInheritor(psiClass, CommonClassNames.JAVA_LANG_NUMBER)
+                || InheritanceUtil.isInheritor(psiClass, CommonClassNames.JAVA_UTIL_DATE)
+                || InheritanceUtil.isInheritor(psiClass, "java.time.temporal.Temporal")) {
+            return TypeKind.LITERAL;
+        }
+        if (InheritanceUtil.isInheritor(psiClass, CommonClassNames.JAVA_UTIL_MAP)) {
+            return TypeKind.MAP;
+        }
+        if (InheritanceUtil.isInheritor(psiClass, CommonClassNames.JAVA_LANG_ITERABLE)) {
+            return TypeKind.ARRAY;
+        }
+        return TypeKind.OBJECT;
+    }
+
+    private Object getLiteralSample(PsiType psiType) {
+        Object sample = samples.get(psiType.getCanonicalText());
+        if (sample != null) {
+            return sample;
+        }
+        PsiClass psiClass = PsiUtil.resolveClassInType(psiType);
+        if (psiClass == null || InheritanceUtil.isInheritor(psiClass, CommonClassNames.JAVA_LANG_CHAR_SEQUENCE)) {
+            return STRING_SAMPLE;
+        }
+        if (InheritanceUtil.isInheritor(psiClass, CommonClassNames.JAVA_LANG_NUMBER)) {
+            return 0;
+        }
+        if (InheritanceUtil.isInheritor(psiClass, CommonClassNames.JAVA_UTIL_DATE)) {
+            return samples.get(CommonClassNames.JAVA_UTIL_DATE);
+        }
+        return DATE_TIME_SAMPLE;
+    }
+
+    private Object getEnumSample(PsiClass psiClass) {
+        if (psiClass == null) {
+            return "";
+        }
+        for (PsiField field : psiClass.getFields()) {
+            if (field instanceof PsiEnumConstant) {
+                return field.getName();
+            }
+        }
+        return "";
+    }
+
+    private boolean isOptional(PsiClassType classType) {
+        return classType.getParameterCount() == 1 && CommonClassNames.JAVA_UTIL_OPTIONAL.equals(classType.rawType().getCanonicalText());
+    }
+}
@@ -0,0 +1,167 @@
+package org.uklin.plugin.api.store;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.util.PsiUtilCore;
+import org.uklin.plugin.api.config.ApiGeneratorConfig;
+import org.uklin.plugin.api.normal.FieldInfo;
+import org.uklin.plugin.api.normal.MethodInfo;
+import org.uklin.plugin.api.normal.SchemaCache;
+import org.uklin.plugin.api.normal.TypeClassifier;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * 保存在IDE系统目录下的解析结果和上传记录，IDE重启后仍然有效
+ * <p>
+ * 每个项目一个目录，包含已上传接口的指纹和Controller的解析结果。
+ * 解析结果记录依赖文件的修改时间，文件修改、有未保存的修改或配置变化后失效
+ */
+public class ApiStore implements Disposable {
+
+    private static final Logger LOG = Logger.getInstance(ApiStore.class);
+
+    /**
+     * 解析结果的存储格式版本，{@link MethodInfo}等快照类结构变化时需要增加
+     */
+    private static final int SNAPSHOT_VERSION = 6;
+    private static final int FINGERPRINT_VERSION = 1;
+
+    private final Project project;
+    private final Path storeDir;
+    private LogStore fingerprints;
+    private LogStore snapshots;
+
+    public ApiStore(Project project) {
+        this.project = project;
+        this.storeDir = Paths.get(PathManager.getSystemPath(), "api-generator", project.getLocationHash());
+    }
+
+    public static ApiStore getInstance(Project project) {
+        return ServiceManager.getService(project, ApiStore.class);
+    }
+
+    public synchronized LogStore getFingerprints() {
+        if (fingerprints == null) {
+            fingerprints = new LogStore(storeDir.resolve("fingerprints.log"), FINGERPRINT_VERSION);
+        }
+        return fingerprints;
+    }
+
+    private synchronized LogStore getSnapshots() {
+        if (snapshots == null) {
+            snapshots = new LogStore(storeDir.resolve("snapshots.log"), SNAPSHOT_VERSION);
+        }
+        return snapshots;
+    }
+
+    /**
+     * 上次保存的Controller解析结果，需要在读操作中调用，只读取内存中的数据
+     *
+     * @return 没有保存过或已失效时返回null
+     */
+    public ClassSnapshot getSnapshot(PsiClass psiClass) {
+        String key = psiClass.getQualifiedName();
+        if (key == null) {
+            return null;
+        }
+        byte[] bytes = getSnapshots().get(key);
+        if (bytes == null) {
+            return null;
+        }
+        ClassSnapshot snapshot;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            snapshot = (ClassSnapshot) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            //无法读取的快照在下次保存时被覆盖
+            return null;
+        }
+        if (!getConfigDigest().equals(snapshot.getConfigDigest()) || !isUpToDate(snapshot.getDependencies())) {
+            return null;
+        }
+        snapshot.setStored(true);
+        return snapshot;
+    }
+
+    /**
+     * 根据新的解析结果创建快照，记录依赖文件的修改时间，需要在读操作中调用
+     */
+    public ClassSnapshot createSnapshot(PsiClass psiClass, List<MethodInfo> methodInfos) {
+        String key = psiClass.getQualifiedName();
+        VirtualFile classFile = PsiUtilCore.getVirtualFile(psiClass);
+        if (key == null || classFile == null) {
+            return new ClassSnapshot(key, methodInfos, null, getConfigDigest());
+        }
+        List<FieldInfo> roots = new ArrayList<>();
+        for (MethodInfo methodInfo : methodInfos) {
+            if (methodInfo.getRequestFields() != null) {
+                roots.addAll(methodInfo.getRequestFields());
+            }
+            roots.add(methodInfo.getResponse());
+        }
+        Set<String> files = SchemaCache.collectSourceFiles(roots);
+        files.add(classFile.getUrl());
+        Map<String, Long> dependencies = new HashMap<>();
+        for (String url : files) {
+            VirtualFile file = VirtualFileManager.getInstance().findFileByUrl(url);
+            if (file == null || FileDocumentManager.getInstance().isFileModified(file)) {
+                return new ClassSnapshot(key, methodInfos, null, getConfigDigest());
+            }
+            dependencies.put(url, file.getTimeStamp());
+        }
+        return new ClassSnapshot(key, methodInfos, dependencies, getConfigDigest());
+    }
+
+    /**
+     * 保存新创建的快照，会写入磁盘，不能在读操作中调用
+     */
+    public void putSnapshot(ClassSnapshot snapshot) {
+        if (snapshot.isStored() || snapshot.getClassName() == null || snapshot.getDependencies() == null) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(snapshot);
+        } catch (IOException e) {
+            LOG.warn("Failed to serialize " + snapshot.getClassName(), e);
+            return;
+        }
+        getSnapshots().put(snapshot.getClassName(), bytes.toByteArray());
+        snapshot.setStored(true);
+    }
+
+    @Override
+    public synchronized void dispose() {
+        if (fingerprints != null) {
+            fingerprints.close();
+        }
+        if (snapshots != null) {
+            snapshots.close();
+        }
+    }
+
+    private boolean isUpToDate(Map<String, Long> dependencies) {
+        for (Map.Entry<String, Long> entry : dependencies.entrySet()) {
+            VirtualFile file = VirtualFileManager.getInstance().findFileByUrl(entry.getKey());
+            if (file == null || file.getTimeStamp() != entry.getValue() || FileDocumentManager.getInstance().isFileModified(file)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String getConfigDigest() {
+        ApiGeneratorConfig state = Objects.requireNonNull(ServiceManager.getService(project, ApiGeneratorConfig.class).getState());
+        return TypeClassifier.RULES_VERSION + "|" + state.excludeFields + "|" + state.prefetchDepth + "|" + state.maxDepth + "|" + state.maxNodes + "|" + state.maxProperties;
+    }
+}
@@ -0,0 +1,35 @@
+package org.uklin.plugin.api.store;
+
+import lombok.Data;
+import org.uklin.plugin.api.normal.MethodInfo;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller中全部接口的解析结果，依赖的文件和配置均未变化时可以直接使用。
+ * 依赖文件有未保存的修改时dependencies为null，这样的快照不保存
+ */
+@Data
+public class ClassSnapshot implements Serializable {
+    private static final long serialVersionUID = 6390521829547712045L;
+
+    /**
+     * Controller类全名
+     */
+    private final String className;
+    private final List<MethodInfo> methodInfos;
+    /**
+     * 依赖文件的URL和修改时间，包括Controller所在文件和请求、返回类型的声明文件
+     */
+    private final Map<String, Long> dependencies;
+    /**
+     * 影响解析结果的配置
+     */
+    private final String configDigest;
+    /**
+     * 是否已保存，从存储中读出的快照不需要再次保存
+     */
+    private transient boolean stored;
+}
@@ -0,0 +1,234 @@
+package org.uklin.plugin.api.store;
+
+import com.intellij.openapi.diagnostic.Logger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 只追加写入的键值文件
+ * <p>
+ * 文件头为魔数和版本号，之后每条记录依次为key长度、key、value长度、value，删除时写入value长度为-1的记录。
+ * 打开时顺序读取全部记录到内存，之后读操作只访问内存，写操作同时追加到文件末尾。
+ * 版本号不一致时丢弃原文件，末尾记录不完整（如写入时IDE退出）或长度异常时丢弃该记录及之后的内容。
+ * 被覆盖或删除的记录多于有效记录时，打开和关闭时压缩文件：只写入有效记录到临时文件后替换原文件
+ */
+public class LogStore implements Closeable {
+
+    private static final Logger LOG = Logger.getInstance(LogStore.class);
+
+    private static final int MAGIC = 0x41504753;
+    private static final int TOMBSTONE = -1;
+    /**
+     * 失效记录数超过该值且超过有效记录数时才压缩
+     */
+    private static final int MIN_COMPACT_GARBAGE = 64;
+
+    private final Path file;
+    private final int version;
+    private final Map<String, byte[]> values = new ConcurrentHashMap<>();
+    private DataOutputStream out;
+    private int garbage;
+
+    public LogStore(Path file, int version) {
+        this.file = file;
+        this.version = version;
+        try {
+            Files.createDirectories(file.getParent());
+            boolean complete = load();
+            if (!complete || needCompact()) {
+                compact();
+            } else {
+                out = openAppend();
+            }
+        } catch (IOException e) {
+            //无法读写文件时只在内存中保存
+            LOG.warn("Failed to open " + file, e);
+        }
+    }
+
+    public byte[] get(String key) {
+        return values.get(key);
+    }
+
+    public Set<String> keys() {
+        return values.keySet();
+    }
+
+    public synchronized void put(String key, byte[] value) {
+        if (values.put(key, value) != null) {
+            garbage++;
+        }
+        append(key, value);
+    }
+
+    public synchronized void remove(String key) {
+        if (values.remove(key) != null) {
+            garbage += 2;
+            append(key, null);
+        }
+    }
+
+    /**
+     * 删除全部记录并清空文件
+     */
+    public synchronized void clear() {
+        values.clear();
+        garbage = 0;
+        try {
+            closeOutput();
+            Files.deleteIfExists(file);
+            out = openAppend();
+        } catch (IOException e) {
+            LOG.warn("Failed to clear " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (out != null && needCompact()) {
+                compact();
+            }
+            closeOutput();
+        } catch (IOException e) {
+            LOG.warn("Failed to close " + file, e);
+        }
+    }
+
+    /**
+     * 读取到最后一条完整的记录为止，之后的内容（不完整或长度异常的记录）在压缩时丢弃
+     *
+     * @return 文件完整时返回true，版本不一致或有不完整的记录时返回false
+     */
+    private boolean load() throws IOException {
+        if (!Files.exists(file)) {
+            return true;
+        }
+        long size = Files.size(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (size < 8 || in.readInt() != MAGIC || in.readInt() != version) {
+                return false;
+            }
+            long position = 8;
+            while (position < size) {
+                long remaining = size - position;
+                if (remaining < 4) {
+                    return false;
+                }
+                int keyLength = in.readInt();
+                if (!fits(keyLength, remaining - 4 - 4)) {
+                    return false;
+                }
+                byte[] key = readBytes(in, keyLength);
+                remaining -= 4 + keyLength + 4;
+                int valueLength = in.readInt();
+                if (valueLength == TOMBSTONE) {
+                    values.remove(new String(key, StandardCharsets.UTF_8));
+                    garbage += 2;
+                    position = size - remaining;
+                    continue;
+                }
+                if (!fits(valueLength, remaining)) {
+                    return false;
+                }
+                if (values.put(new String(key, StandardCharsets.UTF_8), readBytes(in, valueLength)) != null) {
+                    garbage++;
+                }
+                position = size - remaining + valueLength;
+            }
+            return true;
+        } catch (EOFException e) {
+            //文件在读取时被截断
+            return false;
+        }
+    }
+
+    /**
+     * 记录中的长度是否有效，长度超过文件剩余字节数时说明记录不完整或已损坏
+     */
+    private static boolean fits(int length, long remaining) {
+        return length >= 0 && length <= remaining;
+    }
+
+    private static byte[] readBytes(DataInputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private boolean needCompact() {
+        return garbage > MIN_COMPACT_GARBAGE && garbage > values.size();
+    }
+
+    private void compact() throws IOException {
+        closeOutput();
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream tempOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            tempOut.writeInt(MAGIC);
+            tempOut.writeInt(version);
+            for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+                writeRecord(tempOut, entry.getKey(), entry.getValue());
+            }
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        garbage = 0;
+        out = openAppend();
+    }
+
+    private DataOutputStream openAppend() throws IOException {
+        boolean exists = Files.exists(file);
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        if (!exists) {
+            output.writeInt(MAGIC);
+            output.writeInt(version);
+            output.flush();
+        }
+        return output;
+    }
+
+    private void append(String key, byte[] value) {
+        if (out == null) {
+            return;
+        }
+        try {
+            writeRecord(out, key, value);
+            out.flush();
+        } catch (IOException e) {
+            LOG.warn("Failed to write " + file, e);
+            closeOutput();
+        }
+    }
+
+    private static void writeRecord(DataOutputStream output, String key, byte[] value) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(keyBytes.length);
+        output.write(keyBytes);
+        if (value == null) {
+            output.writeInt(TOMBSTONE);
+        } else {
+            output.writeInt(value.length);
+            output.write(value);
+        }
+    }
+
+    private void closeOutput() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to close " + file, e);
+        }
+        out = null;
+    }
+}
@@ -0,0 +1,101 @@
+package org.uklin.plugin.api.upload;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import org.uklin.plugin.api.store.ApiStore;
+import org.uklin.plugin.api.store.LogStore;
+import org.uklin.plugin.api.yapi.model.YApiInterface;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 已上传接口的指纹
+ * <p>
+ * 指纹是接口内容规范化后JSON的SHA-256，按YApi服务器、项目和请求方法+路径记录，上传成功后更新，
+ * 内容未变化的接口再次上传时可以跳过。指纹保存在{@link ApiStore}中，IDE重启后仍然有效
+ */
+public class FingerprintStore {
+
+    private static final Gson gson = new Gson();
+
+    private final LogStore fingerprints;
+
+    public FingerprintStore(Project project) {
+        this.fingerprints = ApiStore.getInstance(project).getFingerprints();
+    }
+
+    public static FingerprintStore getInstance(Project project) {
+        return ServiceManager.getService(project, FingerprintStore.class);
+    }
+
+    public static String key(String serverUrl, String projectId, YApiInterface yApiInterface) {
+        return serverUrl + "|" + projectId + "|" + yApiInterface.getMethod() + " " + yApiInterface.getPath();
+    }
+
+    /**
+     * 接口内容的指纹，对象属性按名称排序，不包含token。
+     * 使用分类名称而不是分类ID，逐个上传和批量导入的指纹相同
+     */
+    public static String fingerprint(YApiInterface yApiInterface, String catName) {
+        JsonObject json = gson.toJsonTree(yApiInterface).getAsJsonObject();
+        json.remove("token");
+        json.remove("catid");
+        json.addProperty("catname", catName);
+        return sha256(normalize(json).toString());
+    }
+
+    /**
+     * 上次上传成功时的指纹，未上传过时为null
+     */
+    public String get(String key) {
+        byte[] fingerprint = fingerprints.get(key);
+        return fingerprint == null ? null : new String(fingerprint, StandardCharsets.UTF_8);
+    }
+
+    public void put(String key, String fingerprint) {
+        fingerprints.put(key, fingerprint.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static JsonElement normalize(JsonElement element) {
+        if (element.isJsonObject()) {
+            Map<String, JsonElement> sorted = new TreeMap<>();
+            for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+                sorted.put(entry.getKey(), normalize(entry.getValue()));
+            }
+            JsonObject result = new JsonObject();
+            for (Map.Entry<String, JsonElement> entry : sorted.entrySet()) {
+                result.add(entry.getKey(), entry.getValue());
+            }
+            return result;
+        }
+        if (element.isJsonArray()) {
+            JsonArray result = new JsonArray();
+            for (JsonElement item : element.getAsJsonArray()) {
+                result.add(normalize(item));
+            }
+            return result;
+        }
+        return element;
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
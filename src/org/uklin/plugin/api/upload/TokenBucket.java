@@ -0,0 +1,55 @@
+package org.uklin.plugin.api.upload;
+
+import com.intellij.openapi.progress.ProgressManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 令牌桶限流
+ * <p>
+ * 每秒生成固定数量的令牌，最多积累一秒的令牌，每个请求消耗一个令牌，没有令牌时等待
+ */
+public class TokenBucket {
+
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillTime;
+
+    /**
+     * @param permitsPerSecond 每秒请求数，小于等于0时不限流
+     */
+    public TokenBucket(int permitsPerSecond) {
+        this.permitsPerNano = permitsPerSecond / (double) TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, permitsPerSecond);
+        this.tokens = capacity;
+        this.lastRefillTime = System.nanoTime();
+    }
+
+    /**
+     * 获取一个令牌，等待期间当前线程的进度被取消时抛出ProcessCanceledException
+     */
+    public void acquire() {
+        if (permitsPerNano <= 0) {
+            return;
+        }
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                tokens = Math.min(capacity, tokens + (now - lastRefillTime) * permitsPerNano);
+                lastRefillTime = now;
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = (long) ((1 - tokens) / permitsPerNano);
+            }
+            ProgressManager.checkCanceled();
+            LockSupport.parkNanos(Math.min(waitNanos, MAX_PARK_NANOS));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.uklin.plugin.api.upload;
+
+import com.intellij.concurrency.SensitiveProgressWrapper;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 上传队列
+ * <p>
+ * 解析线程把解析完成的接口放入有界队列，队列满时等待；多个上传线程从队列取出接口并发上传，
+ * 同时进行的请求数不超过上传线程数，请求速率由上传方在实际发送请求前通过{@link TokenBucket}限制。
+ * 全部接口提交后调用{@link #finish()}等待上传完成并返回统计结果。
+ * 上传线程在单独的子进度中运行，进度被取消或调用{@link #abort()}时取消子进度，中断正在进行的请求
+ *
+ * @param <T> 待上传的接口
+ */
+public class UploadPipeline<T> {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final BlockingQueue<T> queue;
+    private final Uploader<T> uploader;
+    private final Function<T, String> nameFunction;
+    private final ProgressIndicator indicator;
+    /**
+     * 上传线程的进度，文本和进度值显示在indicator上，可以单独取消
+     */
+    private final ProgressIndicator workerIndicator;
+    private final ExecutorService executor;
+    private final List<Future<?>> workers = new ArrayList<>();
+    private final UploadSummary summary = new UploadSummary();
+    private final AtomicInteger completed = new AtomicInteger();
+    private volatile int total;
+    private volatile boolean closed;
+
+    /**
+     * @param maxInFlight  上传线程数，即同时进行的最大请求数
+     * @param nameFunction 接口名称，用于进度和失败提示
+     */
+    public UploadPipeline(int maxInFlight, Uploader<T> uploader, Function<T, String> nameFunction, ProgressIndicator indicator) {
+        int workerCount = Math.max(1, maxInFlight);
+        this.queue = new ArrayBlockingQueue<>(workerCount * 4);
+        this.uploader = uploader;
+        this.nameFunction = nameFunction;
+        this.indicator = indicator;
+        this.workerIndicator = new SensitiveProgressWrapper(indicator);
+        this.executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("ApiGenerator Uploader", workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            //上传线程关联进度，上传中同步等待请求时可以响应取消
+            workers.add(executor.submit(() -> ProgressManager.getInstance().executeProcessUnderProgress(this::work, workerIndicator)));
+        }
+    }
+
+    /**
+     * 设置待上传的接口总数，用于计算进度，未设置时不更新进度值
+     */
+    public void setTotal(int total) {
+        this.total = total;
+        indicator.setIndeterminate(total <= 0);
+    }
+
+    /**
+     * 提交待上传的接口，队列满时等待
+     */
+    public void submit(T item) {
+        try {
+            while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                indicator.checkCanceled();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException(e);
+        }
+    }
+
+    /**
+     * 不再提交接口，等待已提交的接口上传完成，等待期间进度被取消时中断上传
+     */
+    public UploadSummary finish() {
+        closed = true;
+        try {
+            for (Future<?> worker : workers) {
+                while (true) {
+                    if (indicator.isCanceled()) {
+                        abort();
+                        indicator.checkCanceled();
+                    }
+                    try {
+                        worker.get(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException e) {
+                        //继续等待
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort();
+            throw new ProcessCanceledException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+        indicator.checkCanceled();
+        return summary;
+    }
+
+    /**
+     * 取消上传，丢弃队列中尚未上传的接口并中断正在进行的请求，不等待上传线程结束
+     */
+    public void abort() {
+        queue.clear();
+        closed = true;
+        workerIndicator.cancel();
+        executor.shutdown();
+    }
+
+    private void work() {
+        while (!workerIndicator.isCanceled()) {
+            T item;
+            try {
+                item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (item == null) {
+                if (closed && queue.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            String name = nameFunction.apply(item);
+            try {
+                workerIndicator.setText2(name);
+                summary.add(uploader.upload(item));
+            } catch (ProcessCanceledException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                summary.addFailure(name, e.getMessage());
+            }
+            int done = completed.incrementAndGet();
+            if (total > 0) {
+                workerIndicator.setFraction(Math.min(1.0, (double) done / total));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Uploader<T> {
+        /**
+         * 上传单个接口，失败时抛出异常，在上传线程中调用，可以通过ProgressManager检查取消
+         */
+        UploadResult upload(T item) throws IOException;
+    }
+}
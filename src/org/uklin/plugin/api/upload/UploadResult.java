@@ -0,0 +1,20 @@
+package org.uklin.plugin.api.upload;
+
+/**
+ * 单个接口的上传结果
+ */
+public enum UploadResult {
+    /**
+     * 首次上传
+     */
+    NEW,
+    /**
+     * 内容变化后重新上传
+     */
+    UPDATED,
+    /**
+     * 内容未变化，未上传
+     */
+    SKIPPED,
+    FAILED
+}
@@ -0,0 +1,77 @@
+package org.uklin.plugin.api.upload;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一次上传的结果统计，可以被多个上传线程同时更新
+ */
+public class UploadSummary {
+
+    /**
+     * 提示中最多列出的失败接口数
+     */
+    private static final int MAX_LISTED_FAILURES = 10;
+
+    private final Map<UploadResult, Integer> counts = new EnumMap<>(UploadResult.class);
+    private final List<String> failures = new ArrayList<>();
+
+    public synchronized void add(UploadResult result) {
+        counts.merge(result, 1, Integer::sum);
+    }
+
+    /**
+     * 记录上传失败的接口
+     *
+     * @param endpoint 请求方法和路径
+     */
+    public synchronized void addFailure(String endpoint, String reason) {
+        add(UploadResult.FAILED);
+        failures.add(reason == null ? endpoint : endpoint + ": " + reason);
+    }
+
+    public synchronized int getCount(UploadResult result) {
+        return counts.getOrDefault(result, 0);
+    }
+
+    public synchronized int getTotal() {
+        int total = 0;
+        for (int count : counts.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    public boolean hasFailure() {
+        return getCount(UploadResult.FAILED) > 0;
+    }
+
+    /**
+     * 失败的接口及原因，每个接口一行，超过{@link #MAX_LISTED_FAILURES}个时省略其余接口
+     */
+    public synchronized String getFailureDetail() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < failures.size() && i < MAX_LISTED_FAILURES; i++) {
+            builder.append('\n').append(failures.get(i));
+        }
+        if (failures.size() > MAX_LISTED_FAILURES) {
+            builder.append("\n... and ").append(failures.size() - MAX_LISTED_FAILURES).append(" more");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 全部失败的接口及原因
+     */
+    public synchronized List<String> getFailures() {
+        return new ArrayList<>(failures);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return getCount(UploadResult.NEW) + " new, " + getCount(UploadResult.UPDATED) + " updated, "
+                + getCount(UploadResult.SKIPPED) + " skipped, " + getCount(UploadResult.FAILED) + " failed";
+    }
+}
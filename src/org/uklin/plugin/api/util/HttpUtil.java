@@ -1,31 +1,43 @@
 package org.uklin.plugin.api.util;
 
 import org.apache.http.HttpEntity;
-import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.entity.GzipCompressingEntity;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
+import org.apache.http.entity.ContentProducer;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.EntityTemplate;
+import org.apache.http.util.EntityUtils;
 
 import java.io.*;
 import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 public class HttpUtil {
 
     private static final String CHARSET = "UTF-8";
 
-    public static String doGet(String url, Map<String, String> params) {
-        return doHttpRequst(buildGetRequest(url, params));
+    public static <T> T doGet(HttpClient httpClient, String url, Map<String, String> params, ResponseReader<T> responseReader) throws IOException {
+        return execute(httpClient, buildGetRequest(url, params), responseReader);
     }
 
-    public static String doPost(String url, String body) {
-        return doHttpRequst(buildPostRequestWithJsonType(url, body));
+    /**
+     * 发送JSON请求，请求体在发送时由body直接写入连接，不在内存中生成完整的请求体
+     *
+     * @param gzip 是否压缩请求体，需要服务器支持Content-Encoding: gzip
+     */
+    public static <T> T doPost(HttpClient httpClient, String url, ContentProducer body, boolean gzip, ResponseReader<T> responseReader) throws IOException {
+        return execute(httpClient, buildPostRequestWithJsonType(url, body, gzip), responseReader);
     }
 
-    private static HttpGet buildGetRequest(String url, Map<String, String> params) {
+    public static HttpGet buildGetRequest(String url, Map<String, String> params) {
         StringBuilder sb = new StringBuilder();
         for (Map.Entry<String, String> entry : params.entrySet()) {
             if (sb.length() != 0) {
@@ -42,59 +54,51 @@ public class HttpUtil {
         return new HttpGet(url + "?" + sb.toString());
     }
 
-    private static HttpPost buildPostRequestWithJsonType(String url, String body) {
-        HttpPost httpPost = null;
-        try {
-            httpPost = new HttpPost(url);
-            httpPost.setHeader("Content-type", "application/json;charset=utf-8");
-            HttpEntity reqEntity = new StringEntity(body == null ? "" : body, CHARSET);
-            httpPost.setEntity(reqEntity);
-        } catch (Exception e) {
-        }
+    /**
+     * JSON请求，请求体在发送时由body直接写入连接
+     *
+     * @param gzip 是否压缩请求体
+     */
+    public static HttpPost buildPostRequestWithJsonType(String url, ContentProducer body, boolean gzip) {
+        HttpPost httpPost = new HttpPost(url);
+        EntityTemplate entity = new EntityTemplate(body);
+        entity.setContentType(ContentType.APPLICATION_JSON.toString());
+        httpPost.setEntity(gzip ? new GzipCompressingEntity(entity) : entity);
         return httpPost;
     }
 
-    private static String doHttpRequst(HttpUriRequest httpUriRequest) {
-        CloseableHttpClient httpclient = HttpClients.createDefault();
-        String responseStr = "";
+    /**
+     * 执行请求，从响应流中直接读取结果，读取后连接归还给客户端的连接池。
+     * 需要中断请求时由调用方创建请求，在其他线程中调用{@link org.apache.http.client.methods.HttpRequestBase#abort()}
+     *
+     * @throws IOException 请求失败、被中断或响应状态码不是2xx
+     */
+    public static <T> T execute(HttpClient httpClient, HttpUriRequest httpUriRequest, ResponseReader<T> responseReader) throws IOException {
+        HttpResponse response = httpClient.execute(httpUriRequest);
+        HttpEntity entity = response.getEntity();
         try {
-            CloseableHttpResponse response = httpclient.execute(httpUriRequest);
-            try {
-                responseStr = getStreamAsString(response.getEntity().getContent());
-            } catch (Exception e) {
-                e.printStackTrace();
-            } finally {
-                response.close();
+            StatusLine statusLine = response.getStatusLine();
+            if (statusLine.getStatusCode() < 200 || statusLine.getStatusCode() >= 300) {
+                throw new HttpResponseException(statusLine.getStatusCode(), httpUriRequest.getURI().getPath() + " responded " + statusLine);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-        } finally {
-            try {
-                httpclient.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+            if (entity == null) {
+                return responseReader.read(new StringReader(""));
             }
-        }
-        return responseStr;
-    }
-
-    private static String getStreamAsString(InputStream stream) throws IOException {
-        try {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(stream, CHARSET));
-            StringWriter writer = new StringWriter();
-
-            char[] chars = new char[256];
-            int count = 0;
-            while ((count = reader.read(chars)) > 0) {
-                writer.write(chars, 0, count);
+            Charset charset = ContentType.getOrDefault(entity).getCharset();
+            try (Reader reader = new BufferedReader(new InputStreamReader(entity.getContent(), charset == null ? StandardCharsets.UTF_8 : charset))) {
+                return responseReader.read(reader);
             }
-
-            return writer.toString();
         } finally {
-            if (stream != null) {
-                stream.close();
-            }
+            EntityUtils.consumeQuietly(entity);
         }
     }
 
+    @FunctionalInterface
+    public interface ResponseReader<T> {
+        /**
+         * 读取响应内容
+         */
+        T read(Reader reader) throws IOException;
+    }
+
 }
@@ -2,11 +2,12 @@ package org.uklin.plugin.api.util;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.intellij.psi.PsiClass;
-import com.intellij.psi.util.PsiUtil;
 import org.apache.commons.lang.StringUtils;
+import org.uklin.plugin.api.config.ApiGeneratorConfig;
 import org.uklin.plugin.api.constant.TypeEnum;
 import org.uklin.plugin.api.normal.FieldInfo;
+import org.uklin.plugin.api.normal.SchemaNode;
+import org.uklin.plugin.api.normal.SchemaPath;
 
 import java.lang.reflect.Modifier;
 import java.util.*;
@@ -15,15 +16,16 @@ public class JsonUtil {
 
     private static final Gson gson = new GsonBuilder().excludeFieldsWithModifiers(Modifier.STATIC, Modifier.FINAL).setPrettyPrinting().create();
 
-    public static String buildPrettyJson(List<FieldInfo> children) {
-        return gson.toJson(getStringObjectMap(children));
+    public static String buildPrettyJson(List<FieldInfo> children, ApiGeneratorConfig config) {
+        return gson.toJson(getStringObjectMap(children, SchemaPath.root(config)));
     }
 
-    public static String buildPrettyJson(FieldInfo fieldInfo) {
+    public static String buildPrettyJson(FieldInfo fieldInfo, ApiGeneratorConfig config) {
         if (TypeEnum.LITERAL.equals(fieldInfo.getParamType())) {
-            return FieldUtil.getValue(fieldInfo.getPsiType()).toString();
+            return fieldInfo.getSample().toString();
         }
-        Map<String, Object> stringObjectMap = getStringObjectMap(fieldInfo.getChildren());
+        SchemaPath path = SchemaPath.root(config);
+        Map<String, Object> stringObjectMap = getStringObjectMap(path.childrenOf(fieldInfo), path.enter(fieldInfo));
         if (TypeEnum.ARRAY.equals(fieldInfo.getParamType())) {
             return gson.toJson(Collections.singletonList(stringObjectMap));
         }
@@ -49,11 +51,11 @@ public class JsonUtil {
         return json5.toString();
     }
 
-    public static String buildJson5(FieldInfo fieldInfo) {
-        return buildJson5(buildPrettyJson(fieldInfo), buildFieldDescList(fieldInfo));
+    public static String buildJson5(FieldInfo fieldInfo, ApiGeneratorConfig config) {
+        return buildJson5(buildPrettyJson(fieldInfo, config), buildFieldDescList(fieldInfo, config));
     }
 
-    private static List<String> buildFieldDescList(List<FieldInfo> children) {
+    private static List<String> buildFieldDescList(List<FieldInfo> children, SchemaPath path) {
         List<String> descList = new ArrayList<>();
         if (children == null) {
             return descList;
@@ -61,13 +63,13 @@ public class JsonUtil {
         for (FieldInfo fieldInfo : children) {
             descList.add(buildDesc(fieldInfo));
             if (!TypeEnum.LITERAL.equals(fieldInfo.getParamType())) {
-                descList.addAll(buildFieldDescList(fieldInfo.getChildren()));
+                descList.addAll(buildFieldDescList(path.childrenOf(fieldInfo), path.enter(fieldInfo)));
             }
         }
         return descList;
     }
 
-    private static List<String> buildFieldDescList(FieldInfo fieldInfo) {
+    private static List<String> buildFieldDescList(FieldInfo fieldInfo, ApiGeneratorConfig config) {
         List<String> descList = new ArrayList<>();
         if (fieldInfo == null) {
             return descList;
@@ -78,7 +80,8 @@ public class JsonUtil {
             }
             descList.add(buildDesc(fieldInfo));
         } else {
-            descList.addAll(buildFieldDescList(fieldInfo.getChildren()));
+            SchemaPath path = SchemaPath.root(config);
+            descList.addAll(buildFieldDescList(path.childrenOf(fieldInfo), path.enter(fieldInfo)));
         }
         return descList;
     }
@@ -94,38 +97,45 @@ public class JsonUtil {
         return desc + ",必填";
     }
 
-    private static Map<String, Object> getStringObjectMap(List<FieldInfo> fieldInfos) {
+    private static Map<String, Object> getStringObjectMap(List<FieldInfo> fieldInfos, SchemaPath path) {
         Map<String, Object> map = new LinkedHashMap<>(64);
         if (fieldInfos == null) {
             return map;
         }
         for (FieldInfo fieldInfo : fieldInfos) {
-            buildJsonValue(map, fieldInfo);
+            buildJsonValue(map, fieldInfo, path);
         }
         return map;
     }
 
-    private static void buildJsonValue(Map<String, Object> map, FieldInfo fieldInfo) {
+    private static void buildJsonValue(Map<String, Object> map, FieldInfo fieldInfo, SchemaPath path) {
+        if (SchemaPath.isTruncation(fieldInfo)) {
+            map.put(fieldInfo.getName(), fieldInfo.getDesc());
+            return;
+        }
         if (TypeEnum.LITERAL.equals(fieldInfo.getParamType())) {
-            map.put(fieldInfo.getName(), FieldUtil.getValue(fieldInfo.getPsiType()));
+            map.put(fieldInfo.getName(), fieldInfo.getSample());
+            return;
         }
+        List<FieldInfo> children = path.childrenOf(fieldInfo);
         if (TypeEnum.ARRAY.equals(fieldInfo.getParamType())) {
-            if (AssertUtils.isNotEmpty(fieldInfo.getChildren())) {
-                map.put(fieldInfo.getName(), Collections.singletonList(getStringObjectMap(fieldInfo.getChildren())));
+            if (AssertUtils.isNotEmpty(children)) {
+                map.put(fieldInfo.getName(), Collections.singletonList(getStringObjectMap(children, path.enter(fieldInfo))));
                 return;
             }
-            PsiClass psiClass = PsiUtil.resolveClassInType(fieldInfo.getPsiType());
-            String innerType = PsiUtil.substituteTypeParameter(fieldInfo.getPsiType(), psiClass, 0, true).getPresentableText();
-            map.put(fieldInfo.getName(), Collections.singletonList(FieldUtil.normalTypes.get(innerType) == null ? new HashMap<>() : FieldUtil.normalTypes.get(innerType)));
+            SchemaNode items = fieldInfo.getSchema().getItems();
+            Object innerValue = items != null && TypeEnum.LITERAL.equals(items.getParamType()) ? items.getSample() : null;
+            map.put(fieldInfo.getName(), Collections.singletonList(innerValue == null ? new HashMap<>() : innerValue));
             return;
         }
-        if (fieldInfo.getChildren() == null) {
+        if (children == null) {
             map.put(fieldInfo.getName(), new HashMap<>());
             return;
         }
-        for (FieldInfo info : fieldInfo.getChildren()) {
+        for (FieldInfo info : children) {
             if (!info.getName().equals(fieldInfo.getName())) {
-                map.put(fieldInfo.getName(), getStringObjectMap(fieldInfo.getChildren()));
+                map.put(fieldInfo.getName(), getStringObjectMap(children, path.enter(fieldInfo)));
+                return;
             }
         }
     }
@@ -3,38 +3,72 @@ package org.uklin.plugin.api.util;
 import com.google.common.base.Strings;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.Ref;
 import com.intellij.psi.*;
 import com.intellij.psi.javadoc.PsiDocComment;
 import com.intellij.psi.search.FilenameIndex;
 import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.ExceptionUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import org.apache.commons.lang.StringUtils;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.jetbrains.annotations.NotNull;
 import org.uklin.plugin.api.config.ApiGeneratorConfig;
 import org.uklin.plugin.api.constant.TypeEnum;
-import org.uklin.plugin.api.constant.WebAnnotation;
+import org.uklin.plugin.api.normal.AnnotationInfo;
 import org.uklin.plugin.api.normal.FieldInfo;
 import org.uklin.plugin.api.normal.MethodInfo;
+import org.uklin.plugin.api.normal.PropertyInfo;
+import org.uklin.plugin.api.normal.SchemaCache;
+import org.uklin.plugin.api.normal.SchemaPath;
+import org.uklin.plugin.api.store.ApiStore;
+import org.uklin.plugin.api.store.ClassSnapshot;
+import org.uklin.plugin.api.upload.*;
 import org.uklin.plugin.api.yapi.enums.RequestBodyTypeEnum;
 import org.uklin.plugin.api.yapi.enums.RequestMethodEnum;
 import org.uklin.plugin.api.yapi.enums.ResponseBodyTypeEnum;
 import org.uklin.plugin.api.yapi.model.*;
+import org.uklin.plugin.api.yapi.sdk.YApiMetadataCache;
 import org.uklin.plugin.api.yapi.sdk.YApiSdk;
 
 import java.io.*;
 import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 
 public class YApiUtil {
+	private static final Logger LOG = Logger.getInstance(YApiUtil.class);
+
 	private static final String SLASH = "/";
 
+	/**
+	 * 批量导入时每次请求最多包含的接口数
+	 */
+	private static final int IMPORT_BATCH_SIZE = 100;
+
 	protected static ApiGeneratorConfig config;
 
+	/**
+	 * 解析接口的线程池，线程数不超过CPU核数
+	 */
+	private static final ExecutorService analyzeExecutor = AppExecutorUtil.createBoundedApplicationPoolExecutor("ApiGenerator Analyzer", Runtime.getRuntime().availableProcessors());
+
 	private static final Gson gson = new GsonBuilder().excludeFieldsWithModifiers(Modifier.STATIC, Modifier.FINAL).setPrettyPrinting().create();
 
 	public static void initConfig(Project project){
@@ -42,29 +76,40 @@ public class YApiUtil {
 	}
 
 	public static YApiBody process(FieldInfo fieldInfo) {
+		return process(fieldInfo, SchemaPath.root(config));
+	}
+
+	private static YApiBody process(FieldInfo fieldInfo, SchemaPath path) {
 		YApiBody result = new YApiBody();
+		if (SchemaPath.isTruncation(fieldInfo)) {
+			result.setType("string");
+			result.setDescription(fieldInfo.getDesc());
+			return result;
+		}
 		switch (fieldInfo.getParamType()) {
 			case OBJECT:
-				processObject(result,fieldInfo);
+				processObject(result,fieldInfo,path);
 				break;
 			case ARRAY:
-				processArray(result,fieldInfo);
+				processArray(result,fieldInfo,path);
 				break;
 			default:
 				String desc = fieldInfo.getDesc().trim();
-				result.setType(fieldInfo.getPsiType().getPresentableText());
+				result.setType(fieldInfo.getTypeName());
 				result.setDescription(desc);
-				result.setMock(new YApiMock(FieldUtil.getValue(fieldInfo.getPsiType())));
+				result.setMock(new YApiMock(fieldInfo.getSample()));
 		}
 		return result;
 	}
 
-	private static void processObject(YApiBody result,FieldInfo fieldInfo){
+	private static void processObject(YApiBody result,FieldInfo fieldInfo,SchemaPath path){
 		result.setType("object");
 		result.setDescription(fieldInfo.getDesc().trim());
-		if(fieldInfo.getChildren()!=null) {
-			for (FieldInfo bean : fieldInfo.getChildren()) {
-				result.getProperties().put(bean.getName(), process(bean));
+		List<FieldInfo> children = path.childrenOf(fieldInfo);
+		if(children!=null) {
+			SchemaPath childPath = path.enter(fieldInfo);
+			for (FieldInfo bean : children) {
+				result.getProperties().put(bean.getName(), process(bean, childPath));
 				if (bean.isRequire()) {
 					result.getRequired().add(bean.getName());
 				}
@@ -72,13 +117,15 @@ public class YApiUtil {
 		}
 	}
 
-	private static void processArray(YApiBody result,FieldInfo fieldInfo){
+	private static void processArray(YApiBody result,FieldInfo fieldInfo,SchemaPath path){
 		result.setType("array");
 		result.setDescription(fieldInfo.getDesc().trim());
 		result.setItems(new YApiBody());
-		if(fieldInfo.getChildren()!=null){
-			for(FieldInfo bean: fieldInfo.getChildren()){
-				result.getItems().getProperties().put(bean.getName(),process(bean));
+		List<FieldInfo> children = path.childrenOf(fieldInfo);
+		if(children!=null){
+			SchemaPath childPath = path.enter(fieldInfo);
+			for(FieldInfo bean: children){
+				result.getItems().getProperties().put(bean.getName(),process(bean,childPath));
 				if(bean.isRequire()) {
 					result.getItems().getRequired().add(bean.getName());
 				}
@@ -91,235 +138,513 @@ public class YApiUtil {
 		return gson.toJson(YApiUtil.process(fieldInfo));
 	}
 
-	public static String getFirstAndLastChar(PsiMethod psiMethodTarget) {
-		return getFirstAndLastChar(Objects.requireNonNull(psiMethodTarget.getDocComment()));
+	/**
+	 * 在后台任务中执行，任务可以取消，结束后在debug日志中输出本次的类型结构缓存命中情况
+	 */
+	public static void runInBackground(Project project, String title, Consumer<ProgressIndicator> task) {
+		new Task.Backgroundable(project, title, true) {
+			@Override
+			public void run(@NotNull ProgressIndicator indicator) {
+				SchemaCache schemaCache = SchemaCache.getInstance(project);
+				long hitCount = schemaCache.getHitCount();
+				long missCount = schemaCache.getMissCount();
+				try {
+					task.accept(indicator);
+				} finally {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug(title + ": schema cache hits " + (schemaCache.getHitCount() - hitCount) + ", misses " + (schemaCache.getMissCount() - missCount));
+					}
+				}
+			}
+		}.queue();
+	}
+
+	/**
+	 * 在非阻塞读操作中解析PSI，需要在后台线程中调用。
+	 * 解析期间有写操作时读操作会被中断并重新执行，因此解析过程不能修改外部状态
+	 */
+	public static <T> T analyze(Project project, ProgressIndicator indicator, Callable<T> analysis) {
+		return ReadAction.nonBlocking(analysis)
+				.inSmartMode(project)
+				.withDocumentsCommitted(project)
+				.expireWhen(project::isDisposed)
+				.wrapProgress(indicator)
+				.executeSynchronously();
 	}
 
+	/**
+	 * 上传选中的方法，未选中方法时上传类中的全部接口
+	 *
+	 * @param methodPointer 未选中方法时为null
+	 */
+	public static void uploadApiToYApi(Project project, SmartPsiElementPointer<PsiClass> classPointer, SmartPsiElementPointer<PsiMethod> methodPointer, ProgressIndicator indicator) {
+		indicator.setText("Analyzing api");
+		List<MethodInfo> methodInfos = methodPointer == null ? null : analyze(project, indicator, () -> {
+			PsiMethod method = methodPointer.getElement();
+			if (method == null) {
+				return null;
+			}
+			return hasMappingAnnotation(method) ? Collections.singletonList(buildMethodInfo(method)) : Collections.<MethodInfo>emptyList();
+		});
+		if (methodInfos == null) {
+			methodInfos = saveSnapshot(project, analyze(project, indicator, () -> {
+				PsiClass psiClass = classPointer.getElement();
+				return psiClass != null && haveControllerAnnotation(psiClass) ? analyzeClass(project, psiClass) : null;
+			}));
+		}
+		uploadMethodInfos(project, methodInfos, indicator);
+	}
 
-	public static String getFirstAndLastChar(PsiDocComment psiDocComment) {
-		return DesUtil.trimFirstAndLastChar(
-				psiDocComment.getText().split("@")[0]
-						.replace("@description", "")
-						.replace("@Description", "")
-						.replace("Description", "")
-						.replace("<br>", "\n")
-						.replace(":", "")
-						.replace("*", "")
-						.replace("/", "")
-						.replace("<p>", "\n")
-						.replace("</p>", "\n")
-						.replace("<li>", "\n")
-						.replace("</li>", "\n")
-						.replace("{", ""), ' '
-		).trim();
+	/**
+	 * 上传多个Controller中的全部接口
+	 */
+	public static void uploadClassesToYApi(Project project, List<SmartPsiElementPointer<PsiClass>> classPointers, ProgressIndicator indicator) {
+		if (!prepareUpload(project)) {
+			return;
+		}
+		if (Objects.requireNonNull(config.getState()).bulkImport) {
+			indicator.setText("Analyzing api");
+			List<MethodInfo> methodInfos = new ArrayList<>();
+			analyzeClasses(project, classPointers, indicator, methodInfos::addAll);
+			notifySummary(project, importToYApi(project, methodInfos, indicator));
+			return;
+		}
+		UploadPipeline<MethodInfo> pipeline = startUpload(project, indicator);
+		try {
+			//接口总数在全部类解析完成后才能确定，之前不显示进度值
+			AtomicInteger total = new AtomicInteger();
+			analyzeClasses(project, classPointers, indicator, methodInfos -> {
+				total.addAndGet(methodInfos.size());
+				methodInfos.forEach(pipeline::submit);
+			});
+			pipeline.setTotal(total.get());
+		} catch (RuntimeException e) {
+			pipeline.abort();
+			throw e;
+		}
+		notifySummary(project, pipeline.finish());
 	}
 
-	public static String getParamDesc(String tagText) {
-		String[] strings = tagText.replace("*","").replaceAll(" {2,}", " ").trim().split(" ");
-		if (strings.length >= 3) {
-			String desc = strings[2];
-			return desc.replace("\n", "");
+	/**
+	 * 并行解析多个类中的接口，每个类在单独的读操作中解析，解析结果按类的顺序交给consumer
+	 */
+	private static void analyzeClasses(Project project, List<SmartPsiElementPointer<PsiClass>> classPointers, ProgressIndicator indicator, Consumer<List<MethodInfo>> consumer) {
+		List<Future<ClassSnapshot>> futures = new ArrayList<>(classPointers.size());
+		for (SmartPsiElementPointer<PsiClass> classPointer : classPointers) {
+			futures.add(analyzeExecutor.submit(() -> analyze(project, indicator, () -> {
+				PsiClass psiClass = classPointer.getElement();
+				return psiClass == null ? null : analyzeClass(project, psiClass);
+			})));
+		}
+		try {
+			for (Future<ClassSnapshot> future : futures) {
+				consumer.accept(saveSnapshot(project, waitFor(future, indicator)));
+			}
+		} finally {
+			for (Future<ClassSnapshot> future : futures) {
+				future.cancel(false);
+			}
 		}
-		return "";
 	}
 
-	public static  void uploadApiToYApi(Project project, PsiElement referenceAt, PsiClass selectedClass) {
-		PsiMethod selectedMethod = PsiTreeUtil.getContextOfType(referenceAt, PsiMethod.class);
-		if (selectedMethod != null) {
+	/**
+	 * 等待后台解析完成，等待期间响应取消
+	 */
+	private static <T> T waitFor(Future<T> future, ProgressIndicator indicator) {
+		while (true) {
+			indicator.checkCanceled();
 			try {
-				uploadSelectedMethodToYApi(project, selectedMethod);
-			} catch (IOException e) {
-				NotificationUtil.errorNotify(e.getMessage(), project);
+				return future.get(50, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				//继续等待
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ProcessCanceledException(e);
+			} catch (ExecutionException e) {
+				ExceptionUtil.rethrowUnchecked(e.getCause());
+				throw new IllegalStateException(e.getCause());
 			}
+		}
+	}
+
+	/**
+	 * 类中全部接口的解析结果，在读操作中调用，类和依赖的文件未修改时使用上次保存的结果。
+	 * 读操作可能被中断重新执行，因此这里不写入存储，新的结果在读操作结束后由{@link #saveSnapshot}保存
+	 */
+	private static ClassSnapshot analyzeClass(Project project, PsiClass psiClass) {
+		ApiStore apiStore = ApiStore.getInstance(project);
+		ClassSnapshot snapshot = apiStore.getSnapshot(psiClass);
+		if (snapshot != null) {
+			return snapshot;
+		}
+		List<MethodInfo> methodInfos = new ArrayList<>();
+		for (PsiMethod method : psiClass.getMethods()) {
+			ProgressManager.checkCanceled();
+			if (hasMappingAnnotation(method)) {
+				methodInfos.add(buildMethodInfo(method));
+			}
+		}
+		return apiStore.createSnapshot(psiClass, methodInfos);
+	}
+
+	/**
+	 * 保存新的解析结果，在读操作之外调用
+	 *
+	 * @return 快照中的接口，没有快照时为空列表
+	 */
+	private static List<MethodInfo> saveSnapshot(Project project, ClassSnapshot snapshot) {
+		if (snapshot == null) {
+			return Collections.emptyList();
+		}
+		ApiStore.getInstance(project).putSnapshot(snapshot);
+		return snapshot.getMethodInfos();
+	}
+
+	private static void uploadMethodInfos(Project project, List<MethodInfo> methodInfos, ProgressIndicator indicator) {
+		if (methodInfos.isEmpty()) {
+			NotificationUtil.warnNotify("Upload api failed, reason:\n not REST api.", project);
 			return;
 		}
+		if (!prepareUpload(project)) {
+			return;
+		}
+		if (Objects.requireNonNull(config.getState()).bulkImport) {
+			notifySummary(project, importToYApi(project, methodInfos, indicator));
+			return;
+		}
+		UploadPipeline<MethodInfo> pipeline = startUpload(project, indicator);
+		pipeline.setTotal(methodInfos.size());
 		try {
-			uploadHttpMethodsToYApi(project, selectedClass);
+			methodInfos.forEach(pipeline::submit);
+		} catch (RuntimeException e) {
+			pipeline.abort();
+			throw e;
+		}
+		notifySummary(project, pipeline.finish());
+	}
+
+	/**
+	 * 检查配置，重新加载分类
+	 *
+	 * @return 缺少配置时返回false
+	 */
+	private static boolean prepareUpload(Project project) {
+		try {
+			if (!checkYApiConfig(project)) {
+				return false;
+			}
 		} catch (IOException e) {
 			NotificationUtil.errorNotify(e.getMessage(), project);
+			return false;
 		}
+		ApiGeneratorConfig state = Objects.requireNonNull(config.getState());
+		YApiMetadataCache.getInstance(project).refresh(state.yApiServerUrl, state.projectToken);
+		return true;
 	}
 
-	private static void uploadHttpMethodsToYApi(Project project, PsiClass psiClass) throws IOException {
-		if (!haveControllerAnnotation(psiClass)) {
+	/**
+	 * 启动上传线程
+	 */
+	private static UploadPipeline<MethodInfo> startUpload(Project project, ProgressIndicator indicator) {
+		ApiGeneratorConfig state = Objects.requireNonNull(config.getState());
+		indicator.setText("Uploading api to YApi");
+		indicator.setIndeterminate(true);
+		TokenBucket tokenBucket = new TokenBucket(state.uploadRateLimit);
+		return new UploadPipeline<>(state.maxConcurrentUploads,
+				methodInfo -> uploadToYApi(project, methodInfo, tokenBucket), YApiUtil::getEndpointName, indicator);
+	}
+
+	private static String getEndpointName(MethodInfo methodInfo) {
+		return methodInfo.getRequestMethod() + " " + methodInfo.getPath();
+	}
+
+	private static void notifySummary(Project project, UploadSummary summary) {
+		if (summary.getTotal() == 0) {
 			NotificationUtil.warnNotify("Upload api failed, reason:\n not REST api.", project);
 			return;
 		}
-		if (StringUtils.isEmpty(config.getState().yApiServerUrl)) {
-			String serverUrl = Messages.showInputDialog("Input YApi Server Url", "YApi Server Url", Messages.getInformationIcon());
+		if (summary.hasFailure()) {
+			LOG.warn("Api not synced to YApi:\n" + String.join("\n", summary.getFailures()));
+			NotificationUtil.warnNotify("Upload api finished: " + summary + ".\nNot synced:" + summary.getFailureDetail(), project);
+			return;
+		}
+		NotificationUtil.infoNotify("Upload api success: " + summary + ".", project);
+	}
+
+	/**
+	 * 检查YApi配置，缺少的配置通过对话框输入。在上传线程中调用，
+	 * 输入和查询得到的配置在EDT中写入，写入完成后再开始上传
+	 */
+	private static boolean checkYApiConfig(Project project) throws IOException {
+		ApiGeneratorConfig state = Objects.requireNonNull(config.getState());
+		String serverUrl = state.yApiServerUrl;
+		String projectToken = state.projectToken;
+		String projectId = state.projectId;
+		if (StringUtils.isEmpty(serverUrl)) {
+			serverUrl = showInputDialog("Input YApi Server Url", "YApi Server Url");
 			if (StringUtils.isEmpty(serverUrl)) {
 				NotificationUtil.warnNotify("YApi server url can not be empty.", project);
-				return;
+				return false;
 			}
-			config.getState().yApiServerUrl = serverUrl;
 		}
-		if (StringUtils.isEmpty(config.getState().projectToken)) {
-			String projectToken = Messages.showInputDialog("Input Project Token", "Project Token", Messages.getInformationIcon());
+		if (StringUtils.isEmpty(projectToken)) {
+			projectToken = showInputDialog("Input Project Token", "Project Token");
 			if (StringUtils.isEmpty(projectToken)) {
 				NotificationUtil.warnNotify("Project token can not be empty.", project);
-				return;
+				return false;
 			}
-			config.getState().projectToken = projectToken;
 		}
-		if (StringUtils.isEmpty(Objects.requireNonNull(config.getState()).projectId)) {
-			YApiProject projectInfo = YApiSdk.getProjectInfo(Objects.requireNonNull(config.getState()).yApiServerUrl, config.getState().projectToken);
-			String projectId = projectInfo.get_id() == null ? Messages.showInputDialog("Input Project Id", "Project Id", Messages.getInformationIcon()) : projectInfo.get_id().toString();
+		if (StringUtils.isEmpty(projectId)) {
+			YApiProject projectInfo = YApiMetadataCache.getInstance(project).getProjectInfo(serverUrl, projectToken);
+			projectId = projectInfo.get_id() == null ? showInputDialog("Input Project Id", "Project Id") : projectInfo.get_id().toString();
 			if (StringUtils.isEmpty(projectId)) {
 				NotificationUtil.warnNotify("Project id can not be empty.", project);
-				return;
-			}
-			config.getState().projectId = projectId;
-		}
-		PsiMethod[] methods = psiClass.getMethods();
-		boolean uploadSuccess = false;
-		for (PsiMethod method : methods) {
-			if (hasMappingAnnotation(method)) {
-				uploadToYApi(project, method);
-				uploadSuccess = true;
+				return false;
 			}
 		}
-		if (uploadSuccess) {
-			NotificationUtil.infoNotify("Upload api success.", project);
-			return;
+		if (!serverUrl.equals(state.yApiServerUrl) || !projectToken.equals(state.projectToken) || !projectId.equals(state.projectId)) {
+			String newServerUrl = serverUrl;
+			String newProjectToken = projectToken;
+			String newProjectId = projectId;
+			ApplicationManager.getApplication().invokeAndWait(() -> {
+				state.yApiServerUrl = newServerUrl;
+				state.projectToken = newProjectToken;
+				state.projectId = newProjectId;
+			}, ModalityState.any());
 		}
-		NotificationUtil.infoNotify("Upload api failed, reason:\n not REST api.", project);
+		return true;
 	}
 
-	public static void generateMarkdownForInterface(Project project, PsiElement referenceAt, PsiClass selectedClass) {
-		PsiMethod selectedMethod = PsiTreeUtil.getContextOfType(referenceAt, PsiMethod.class);
-		if (selectedMethod != null) {
-			try {
-				generateMarkdownForSelectedMethod(project, selectedMethod);
-			} catch (IOException e) {
-				NotificationUtil.errorNotify(e.getMessage(), project);
-			}
-			return;
-		}
-		try {
-			generateMarkdownsForAllMethods(project, selectedClass);
-		} catch (IOException e) {
-			NotificationUtil.errorNotify(e.getMessage(), project);
+	/**
+	 * 在EDT中显示输入框，可以在后台线程中调用
+	 */
+	private static String showInputDialog(String message, String title) {
+		Ref<String> result = Ref.create();
+		ApplicationManager.getApplication().invokeAndWait(() -> result.set(Messages.showInputDialog(message, title, Messages.getInformationIcon())));
+		return result.get();
+	}
+
+	/**
+	 * 文件已存在时确认是否覆盖，可以在后台线程中调用
+	 */
+	private static boolean confirmOverwrite(String fileName) {
+		if (Objects.requireNonNull(config.getState()).overwrite) {
+			return true;
 		}
+		Ref<Integer> choose = Ref.create();
+		ApplicationManager.getApplication().invokeAndWait(() -> choose.set(Messages.showOkCancelDialog(fileName + ".md already exists,do you want to overwrite it?", "Overwrite Warning!", "Yes", "No", Messages.getWarningIcon())));
+		return Messages.CANCEL != choose.get();
 	}
 
-	public static void generateMarkdownForClass(Project project, PsiClass psiClass) {
+	/**
+	 * 为接口中选中的方法生成文档，未选中方法时为全部方法生成文档
+	 *
+	 * @param methodPointer 未选中方法时为null
+	 */
+	public static void generateMarkdownForInterface(Project project, SmartPsiElementPointer<PsiClass> classPointer, SmartPsiElementPointer<PsiMethod> methodPointer, ProgressIndicator indicator) {
 		String dirPath = getDirPath(project);
 		if (!mkDirectory(project, dirPath)) {
 			return;
 		}
+		indicator.setText("Analyzing api");
+		List<MethodInfo> methodInfos = analyze(project, indicator, () -> {
+			PsiMethod method = methodPointer == null ? null : methodPointer.getElement();
+			if (method != null) {
+				return Collections.singletonList(buildMethodInfo(method));
+			}
+			List<MethodInfo> result = new ArrayList<>();
+			PsiClass psiClass = classPointer.getElement();
+			if (psiClass != null) {
+				for (PsiMethod psiMethod : psiClass.getMethods()) {
+					ProgressManager.checkCanceled();
+					result.add(buildMethodInfo(psiMethod));
+				}
+			}
+			return result;
+		});
+		if (methodInfos.isEmpty()) {
+			return;
+		}
+		Model pomModel = readPom(analyze(project, indicator, () -> getPomPath(project)));
+		indicator.setText("Writing api doc");
 		boolean generateSuccess = false;
 		try {
-			generateSuccess = generateDocForClass(project, psiClass, dirPath);
+			for (MethodInfo methodInfo : methodInfos) {
+				indicator.checkCanceled();
+				if (generateDocForMethod(methodInfo, pomModel, dirPath)) {
+					generateSuccess = true;
+				}
+			}
 		} catch (IOException e) {
 			NotificationUtil.errorNotify(e.getMessage(), project);
 		}
-		if(generateSuccess) {
+		if (generateSuccess) {
 			NotificationUtil.infoNotify("generate api doc success.", project);
 		}
 	}
 
-	protected static void generateMarkdownForSelectedMethod(Project project, PsiMethod selectedMethod) throws IOException {
+	public static void generateMarkdownForClass(Project project, SmartPsiElementPointer<PsiClass> classPointer, ProgressIndicator indicator) {
 		String dirPath = getDirPath(project);
 		if (!mkDirectory(project, dirPath)) {
 			return;
 		}
-		boolean generateSuccess = generateDocForMethod(project, selectedMethod, dirPath);
-		if(generateSuccess) {
-			NotificationUtil.infoNotify("generate api doc success.", project);
-		}
-	}
-
-	protected static void generateMarkdownsForAllMethods(Project project, PsiClass selectedClass) throws IOException {
-		String dirPath = getDirPath(project);
-		if (!mkDirectory(project, dirPath)) {
+		indicator.setText("Analyzing class");
+		Pair<String, List<FieldInfo>> classInfo = analyze(project, indicator, () -> {
+			PsiClass psiClass = classPointer.getElement();
+			return psiClass == null ? null : Pair.create(psiClass.getName(), listFieldInfos(psiClass));
+		});
+		if (classInfo == null) {
 			return;
 		}
+		indicator.setText("Writing api doc");
 		boolean generateSuccess = false;
-		for (PsiMethod psiMethod : selectedClass.getMethods()) {
-			if(generateDocForMethod(project, psiMethod, dirPath)) {
-				generateSuccess = true;
-			}
+		try {
+			generateSuccess = generateDocForClass(classInfo.getFirst(), classInfo.getSecond(), dirPath);
+		} catch (IOException e) {
+			NotificationUtil.errorNotify(e.getMessage(), project);
 		}
 		if(generateSuccess) {
 			NotificationUtil.infoNotify("generate api doc success.", project);
 		}
 	}
 
-	private static void uploadSelectedMethodToYApi(Project project, PsiMethod method) throws IOException {
-		if (!hasMappingAnnotation(method)) {
-			NotificationUtil.warnNotify("Upload api failed, reason:\n not REST api.", project);
-			return;
-		}
-		if (StringUtils.isEmpty(Objects.requireNonNull(config.getState()).yApiServerUrl)) {
-			String serverUrl = Messages.showInputDialog("Input YApi Server Url", "YApi Server Url", Messages.getInformationIcon());
-			if (StringUtils.isEmpty(serverUrl)) {
-				NotificationUtil.warnNotify("YApi server url can not be empty.", project);
-				return;
+	/**
+	 * 上传接口，开启增量上传时跳过内容与上次上传相同的接口，由上传线程调用。
+	 * 只有实际请求YApi前才从tokenBucket获取令牌，跳过的接口不占用限流额度
+	 */
+	private static UploadResult uploadToYApi(Project project, MethodInfo methodInfo, TokenBucket tokenBucket) throws IOException {
+		YApiInterface yApiInterface = buildYApiInterface(methodInfo);
+		if (yApiInterface == null) {
+			throw new IOException("Invalid Class File!");
+		}
+		ApiGeneratorConfig state = Objects.requireNonNull(config.getState());
+		FingerprintStore fingerprintStore = FingerprintStore.getInstance(project);
+		String catName = getCatName(methodInfo.getClassCatName());
+		String key = FingerprintStore.key(state.yApiServerUrl, state.projectId, yApiInterface);
+		String fingerprint = FingerprintStore.fingerprint(yApiInterface, catName);
+		String lastFingerprint = fingerprintStore.get(key);
+		if (state.incrementalUpload && fingerprint.equals(lastFingerprint)) {
+			return UploadResult.SKIPPED;
+		}
+		yApiInterface.setCatid(getCatId(project, catName, tokenBucket::acquire));
+		tokenBucket.acquire();
+		YApiResponse<Object> yApiResponse = YApiSdk.await(YApiSdk.getInstance(project).saveInterface(state.yApiServerUrl, yApiInterface));
+		if (yApiResponse.getErrcode() != null && yApiResponse.getErrcode() != 0) {
+			throw new IOException(yApiResponse.getErrmsg());
+		}
+		fingerprintStore.put(key, fingerprint);
+		return lastFingerprint == null ? UploadResult.NEW : UploadResult.UPDATED;
+	}
+
+	/**
+	 * 批量导入接口，跳过未变化的接口后按分类组装导入数据，通过import_data接口分批导入。
+	 * 分类由YApi按名称匹配或创建，不需要逐个查询分类ID；一批导入失败时这一批的接口都记为失败
+	 */
+	private static UploadSummary importToYApi(Project project, List<MethodInfo> methodInfos, ProgressIndicator indicator) {
+		ApiGeneratorConfig state = Objects.requireNonNull(config.getState());
+		FingerprintStore fingerprintStore = FingerprintStore.getInstance(project);
+		UploadSummary summary = new UploadSummary();
+		List<ImportEntry> entries = new ArrayList<>();
+		for (MethodInfo methodInfo : methodInfos) {
+			YApiInterface yApiInterface;
+			try {
+				yApiInterface = buildYApiInterface(methodInfo);
+			} catch (RuntimeException e) {
+				summary.addFailure(getEndpointName(methodInfo), e.getMessage());
+				continue;
 			}
-			config.getState().yApiServerUrl = serverUrl;
-		}
-		if (StringUtils.isEmpty(Objects.requireNonNull(config.getState()).projectToken)) {
-			String projectToken = Messages.showInputDialog("Input Project Token", "Project Token", Messages.getInformationIcon());
-			if (StringUtils.isEmpty(projectToken)) {
-				NotificationUtil.warnNotify("Project token can not be empty.", project);
-				return;
+			if (yApiInterface == null) {
+				summary.addFailure(getEndpointName(methodInfo), "Invalid Class File!");
+				continue;
 			}
-			config.getState().projectToken = projectToken;
-		}
-		if (StringUtils.isEmpty(config.getState().projectId)) {
-			YApiProject projectInfo = YApiSdk.getProjectInfo(config.getState().yApiServerUrl, config.getState().projectToken);
-			String projectId = projectInfo.get_id() == null ? Messages.showInputDialog("Input Project Id", "Project Id", Messages.getInformationIcon()) : projectInfo.get_id().toString();
-			if (StringUtils.isEmpty(projectId)) {
-				NotificationUtil.warnNotify("Project id can not be empty.", project);
-				return;
+			//token在请求参数中传递
+			yApiInterface.setToken(null);
+			String catName = getCatName(methodInfo.getClassCatName());
+			String key = FingerprintStore.key(state.yApiServerUrl, state.projectId, yApiInterface);
+			String fingerprint = FingerprintStore.fingerprint(yApiInterface, catName);
+			String lastFingerprint = fingerprintStore.get(key);
+			if (state.incrementalUpload && fingerprint.equals(lastFingerprint)) {
+				summary.add(UploadResult.SKIPPED);
+				continue;
+			}
+			entries.add(new ImportEntry(getEndpointName(methodInfo), catName, yApiInterface, key, fingerprint, lastFingerprint == null));
+		}
+		indicator.setText("Importing api to YApi");
+		indicator.setIndeterminate(false);
+		//不覆盖已存在的接口时，YApi上的内容不一定是本次导入的内容，不记录指纹
+		boolean overwrite = !"normal".equals(state.importMerge);
+		YApiSdk yApiSdk = YApiSdk.getInstance(project);
+		for (int from = 0; from < entries.size(); from += IMPORT_BATCH_SIZE) {
+			indicator.checkCanceled();
+			List<ImportEntry> batch = entries.subList(from, Math.min(from + IMPORT_BATCH_SIZE, entries.size()));
+			Map<String, YApiImportCategory> categories = new LinkedHashMap<>();
+			for (ImportEntry entry : batch) {
+				categories.computeIfAbsent(entry.catName, YApiImportCategory::new).getList().add(entry.yApiInterface);
+			}
+			try {
+				YApiResponse<Object> yApiResponse = YApiSdk.await(yApiSdk.importData(state.yApiServerUrl, state.projectToken, new ArrayList<>(categories.values()), state.importMerge), indicator);
+				if (yApiResponse.getErrcode() != null && yApiResponse.getErrcode() != 0) {
+					throw new IOException(yApiResponse.getErrmsg());
+				}
+				for (ImportEntry entry : batch) {
+					if (overwrite || entry.isNew) {
+						fingerprintStore.put(entry.key, entry.fingerprint);
+					}
+					summary.add(entry.isNew ? UploadResult.NEW : UploadResult.UPDATED);
+				}
+			} catch (IOException e) {
+				for (ImportEntry entry : batch) {
+					summary.addFailure(entry.name, e.getMessage());
+				}
 			}
-			config.getState().projectId = projectId;
+			indicator.setFraction((double) (from + batch.size()) / entries.size());
 		}
-		uploadToYApi(project, method);
+		return summary;
 	}
 
-	private static void uploadToYApi(Project project, PsiMethod psiMethod) throws IOException {
-		YApiInterface yApiInterface = buildYApiInterface(project, psiMethod);
-		if (yApiInterface == null) {
-			return;
-		}
-		YApiResponse yApiResponse = YApiSdk.saveInterface(Objects.requireNonNull(config.getState()).yApiServerUrl, yApiInterface);
-		if (yApiResponse.getErrcode() != 0) {
-			NotificationUtil.errorNotify("Upload api failed, cause:" + yApiResponse.getErrmsg(), project);
-			return;
-		}
-		NotificationUtil.infoNotify("Upload api success.", project);
+	/**
+	 * 在读操作内解析方法，返回的{@link MethodInfo}不持有PSI对象
+	 */
+	private static MethodInfo buildMethodInfo(PsiMethod psiMethod) {
+		return ReadAction.compute(() -> {
+			MethodInfo methodInfo = new MethodInfo(psiMethod);
+			PsiClass containingClass = psiMethod.getContainingClass();
+			if (containingClass == null) {
+				return methodInfo;
+			}
+			AnnotationInfo classAnnotation = AnnotationInfo.of(containingClass);
+			AnnotationInfo methodAnnotation = AnnotationInfo.of(psiMethod);
+			methodInfo.setController(classAnnotation.isController());
+			if (methodAnnotation.isMapping()) {
+				methodInfo.setRequestMethod(methodAnnotation.getRequestMethod());
+				methodInfo.setPath(classAnnotation.getMappingPath() + methodAnnotation.getMappingPath());
+			}
+			methodInfo.setResponseBody(methodAnnotation.isResponseBody() || classAnnotation.isRestController());
+			methodInfo.setClassCatName(getClassCatName(containingClass.getDocComment()));
+			methodInfo.setSignature(getMethodDesc(psiMethod));
+			return methodInfo;
+		});
 	}
 
-	private static YApiInterface buildYApiInterface(Project project, PsiMethod psiMethod) throws IOException {
-		PsiClass containingClass = psiMethod.getContainingClass();
-		if (containingClass == null) {
+	/**
+	 * 构建上传的接口，不设置分类ID
+	 */
+	private static YApiInterface buildYApiInterface(MethodInfo methodInfo) {
+		if (methodInfo.getClassName() == null) {
 			return null;
 		}
-		PsiAnnotation controller = null;
-		PsiAnnotation classRequestMapping = null;
-		for (PsiAnnotation annotation : containingClass.getAnnotations()) {
-			String text = annotation.getText();
-			if (text.endsWith(WebAnnotation.Controller)) {
-				controller = annotation;
-			} else if (text.contains(WebAnnotation.RequestMapping)) {
-				classRequestMapping = annotation;
-			}
-		}
-		if (controller == null) {
-			NotificationUtil.warnNotify("Invalid Class File!", project);
+		if (!methodInfo.isController()) {
 			return null;
 		}
-		MethodInfo methodInfo = new MethodInfo(psiMethod);
-		PsiAnnotation methodMapping = getMethodMapping(psiMethod);
 		YApiInterface yApiInterface = new YApiInterface();
 		yApiInterface.setToken(Objects.requireNonNull(config.getState()).projectToken);
-		assert methodMapping != null;
-		RequestMethodEnum requestMethodEnum = getMethodFromAnnotation(methodMapping);
+		RequestMethodEnum requestMethodEnum = methodInfo.getRequestMethod();
+		assert requestMethodEnum != null;
 		yApiInterface.setMethod(requestMethodEnum.name());
-		if (methodInfo.getParamStr().contains(WebAnnotation.RequestBody)) {
+		FieldInfo requestBodyParam = getRequestBodyParam(methodInfo.getRequestFields());
+		if (requestBodyParam != null) {
 			yApiInterface.setReq_body_type(RequestBodyTypeEnum.JSON.getValue());
-			yApiInterface.setReq_body_other(YApiUtil.buildJson5(getRequestBodyParam(methodInfo.getRequestFields())));
+			yApiInterface.setReq_body_other(YApiUtil.buildJson5(requestBodyParam));
 			yApiInterface.setReq_body_is_json_schema(true);
 		} else {
 			if (yApiInterface.getMethod().equals(RequestMethodEnum.POST.name())) {
@@ -328,14 +653,11 @@ public class YApiUtil {
 			}
 		}
 		yApiInterface.setReq_query(listYApiQueries(methodInfo.getRequestFields(), requestMethodEnum));
-		Map<String, YApiCat> catNameMap = getCatNameMap();
-		PsiDocComment classDesc = containingClass.getDocComment();
-		yApiInterface.setCatid(getCatId(catNameMap, classDesc));
 		//修改了接口命名方式
 		String title = methodInfo.getDesc().split("\n")[0].trim();
 		yApiInterface.setTitle(title);
-		yApiInterface.setPath(buildPath(classRequestMapping, methodMapping));
-		if (containResponseBodyAnnotation(psiMethod.getAnnotations()) || controller.getText().contains("Rest")) {
+		yApiInterface.setPath(methodInfo.getPath());
+		if (methodInfo.isResponseBody()) {
 			yApiInterface.setReq_headers(Collections.singletonList(YApiHeader.json()));
 			yApiInterface.setRes_body(YApiUtil.buildJson5(methodInfo.getResponse()));
 			yApiInterface.setRes_body_is_json_schema(true);
@@ -346,38 +668,23 @@ public class YApiUtil {
 		}
 		yApiInterface.setReq_params(listYApiPathVariables(methodInfo.getRequestFields()));
 		String desc = methodInfo.getDesc().replace(title, "").trim();
-		yApiInterface.setDesc(org.apache.commons.lang3.StringUtils.isNotBlank(desc) ? desc : "<pre><code data-language=\"java\" class=\"java\">" + getMethodDesc(psiMethod) + "</code> </pre>");
+		yApiInterface.setDesc(org.apache.commons.lang3.StringUtils.isNotBlank(desc) ? desc : "<pre><code data-language=\"java\" class=\"java\">" + methodInfo.getSignature() + "</code> </pre>");
 		yApiInterface.setMarkdown(yApiInterface.getDesc().trim());
 		return yApiInterface;
 	}
 
-	private static String buildPath(PsiAnnotation classRequestMapping, PsiAnnotation methodMapping) {
-		String classPath = getPathFromAnnotation(classRequestMapping);
-		String methodPath = getPathFromAnnotation(methodMapping);
-		return classPath + methodPath;
-	}
-
 	private static FieldInfo getRequestBodyParam(List<FieldInfo> params) {
 		if (params == null) {
 			return null;
 		}
 		for (FieldInfo fieldInfo : params) {
-			if (FieldUtil.findAnnotationByName(fieldInfo.getAnnotations(), WebAnnotation.RequestBody) != null) {
+			if (fieldInfo.isRequestBody()) {
 				return fieldInfo;
 			}
 		}
 		return null;
 	}
 
-	private static boolean containResponseBodyAnnotation(PsiAnnotation[] annotations) {
-		for (PsiAnnotation annotation : annotations) {
-			if (annotation.getText().contains(WebAnnotation.ResponseBody)) {
-				return true;
-			}
-		}
-		return false;
-	}
-
 	private static String getMethodDesc(PsiMethod psiMethod) {
 		String methodDesc = psiMethod.getText().replace(Objects.nonNull(psiMethod.getBody()) ? psiMethod.getBody().getText() : "", "");
 		if (!Strings.isNullOrEmpty(methodDesc)) {
@@ -389,74 +696,18 @@ public class YApiUtil {
 	private static List<YApiPathVariable> listYApiPathVariables(List<FieldInfo> requestFields) {
 		List<YApiPathVariable> yApiPathVariables = new ArrayList<>();
 		for (FieldInfo fieldInfo : requestFields) {
-			List<PsiAnnotation> annotations = fieldInfo.getAnnotations();
-			PsiAnnotation pathVariable = getPathVariableAnnotation(annotations);
-			if(pathVariable == null) {
+			if(fieldInfo.getPathVariable() == null) {
 				continue;
 			}
 			YApiPathVariable yApiPathVariable = new YApiPathVariable();
-			yApiPathVariable.setName(getPathVariableName(pathVariable,fieldInfo.getName()));
+			yApiPathVariable.setName(fieldInfo.getPathVariable());
 			yApiPathVariable.setDesc(fieldInfo.getDesc());
-			yApiPathVariable.setExample(Objects.requireNonNull(FieldUtil.getValue(fieldInfo.getPsiType())).toString());
+			yApiPathVariable.setExample(Objects.requireNonNull(fieldInfo.getSample()).toString());
 			yApiPathVariables.add(yApiPathVariable);
 		}
 		return yApiPathVariables;
 	}
 
-	private static String getPathVariableName(PsiAnnotation pathVariable,String fieldName) {
-		PsiNameValuePair[] psiNameValuePairs = pathVariable.getParameterList().getAttributes();
-		if (psiNameValuePairs.length > 0) {
-			for (PsiNameValuePair psiNameValuePair : psiNameValuePairs) {
-				String literalValue = psiNameValuePair.getLiteralValue();
-				if (StringUtils.isEmpty(literalValue)) {
-					continue;
-				}
-				String name = psiNameValuePair.getName();
-				if (name == null || "value".equals(name) || "name".equals(name)) {
-					return literalValue;
-				}
-			}
-		}
-		return fieldName;
-	}
-
-	private static PsiAnnotation getPathVariableAnnotation(List<PsiAnnotation> annotations) {
-		return FieldUtil.findAnnotationByName(annotations, WebAnnotation.PathVariable);
-	}
-
-
-	private static String getPathFromAnnotation(PsiAnnotation annotation) {
-		if (annotation == null) {
-			return "";
-		}
-		PsiNameValuePair[] psiNameValuePairs = annotation.getParameterList().getAttributes();
-		if (psiNameValuePairs.length == 1 && psiNameValuePairs[0].getName() == null) {
-			return appendSlash(psiNameValuePairs[0].getLiteralValue());
-		}
-		if (psiNameValuePairs.length >= 1) {
-			for (PsiNameValuePair psiNameValuePair : psiNameValuePairs) {
-				if ("value".equals(psiNameValuePair.getName()) || "path".equals(psiNameValuePair.getName())) {
-					return appendSlash(psiNameValuePair.getLiteralValue());
-				}
-			}
-		}
-		return "";
-	}
-
-	private static String appendSlash(String path) {
-		if (StringUtils.isEmpty(path)) {
-			return "";
-		}
-		String p = path;
-		if (!path.startsWith(SLASH)) {
-			p = SLASH + path;
-		}
-		if(path.endsWith(SLASH)) {
-			p = p.substring(0,p.length()-1);
-		}
-		return p;
-	}
-
 	private static String getDefaultCatName() {
 		String defaultCat = Objects.requireNonNull(config.getState()).defaultCat;
 		return StringUtils.isEmpty(defaultCat) ? "api_generator" : defaultCat;
@@ -469,44 +720,39 @@ public class YApiUtil {
 		return DesUtil.getDescription(classDesc).split(" ")[0];
 	}
 
-	private static String getCatId(Map<String, YApiCat> catNameMap, PsiDocComment classDesc) throws IOException {
+	/**
+	 * 接口保存的分类名称，开启自动分类时取类注释中的模块名
+	 */
+	private static String getCatName(String classCatName) {
 		String defaultCatName = getDefaultCatName();
-		String catName;
 		if (Objects.requireNonNull(config.getState()).autoCat) {
-			String classCatName = getClassCatName(classDesc);
-			catName = StringUtils.isEmpty(classCatName) ? defaultCatName : classCatName;
-		} else {
-			catName = defaultCatName;
-		}
-		YApiCat apiCat = catNameMap.get(catName);
-		if (apiCat != null) {
-			return apiCat.get_id().toString();
+			return StringUtils.isEmpty(classCatName) ? defaultCatName : classCatName;
 		}
-		YApiResponse<YApiCat> yApiResponse = YApiSdk.addCategory(config.getState().yApiServerUrl, config.getState().projectToken, config.getState().projectId, catName);
-		return yApiResponse.getData().get_id().toString();
+		return defaultCatName;
 	}
 
-	private static Map<String, YApiCat> getCatNameMap() throws IOException {
-		List<YApiCat> yApiCats = YApiSdk.listCategories(Objects.requireNonNull(config.getState()).yApiServerUrl, config.getState().projectToken);
-		Map<String, YApiCat> catNameMap = new HashMap<>();
-		for (YApiCat cat : yApiCats) {
-			catNameMap.put(cat.getName(), cat);
-		}
-		return catNameMap;
+	/**
+	 * @param beforeRequest 需要请求YApi加载或创建分类时，在每次请求前调用
+	 */
+	private static String getCatId(Project project, String catName, Runnable beforeRequest) throws IOException {
+		ApiGeneratorConfig state = Objects.requireNonNull(config.getState());
+		return YApiMetadataCache.getInstance(project).getCatId(state.yApiServerUrl, state.projectToken, state.projectId, catName, beforeRequest);
 	}
 
 	private static List<YApiQuery> listYApiQueries(List<FieldInfo> requestFields, RequestMethodEnum requestMethodEnum) {
 		List<YApiQuery> queries = new ArrayList<>();
 		for (FieldInfo fieldInfo : requestFields) {
-			if (notQuery(fieldInfo.getAnnotations(), requestMethodEnum)) {
+			if (notQuery(fieldInfo, requestMethodEnum)) {
 				continue;
 			}
 			if (TypeEnum.LITERAL.equals(fieldInfo.getParamType())) {
 				queries.add(buildYApiQuery(fieldInfo));
 			} else if (TypeEnum.OBJECT.equals(fieldInfo.getParamType())) {
 				List<FieldInfo> children = fieldInfo.getChildren();
-				for (FieldInfo info : children) {
-					queries.add(buildYApiQuery(info));
+				if (AssertUtils.isNotEmpty(children)) {
+					for (FieldInfo info : children) {
+						queries.add(buildYApiQuery(info));
+					}
 				}
 			} else {
 				YApiQuery apiQuery = buildYApiQuery(fieldInfo);
@@ -517,18 +763,18 @@ public class YApiUtil {
 		return queries;
 	}
 
-	private static boolean notQuery(List<PsiAnnotation> annotations, RequestMethodEnum requestMethodEnum) {
-		if (getPathVariableAnnotation(annotations) != null) {
+	private static boolean notQuery(FieldInfo fieldInfo, RequestMethodEnum requestMethodEnum) {
+		if (fieldInfo.getPathVariable() != null) {
 			return true;
 		}
-		return FieldUtil.findAnnotationByName(annotations, WebAnnotation.RequestBody) != null || !RequestMethodEnum.GET.equals(requestMethodEnum);
+		return fieldInfo.isRequestBody() || !RequestMethodEnum.GET.equals(requestMethodEnum);
 	}
 
 	private static YApiQuery buildYApiQuery(FieldInfo fieldInfo) {
 		YApiQuery query = new YApiQuery();
 		query.setName(fieldInfo.getName());
 		query.setDesc(generateDesc(fieldInfo));
-		Object value = FieldUtil.getValue(fieldInfo.getPsiType());
+		Object value = fieldInfo.getSample();
 		if (value != null) {
 			query.setExample(value.toString());
 		}
@@ -553,15 +799,17 @@ public class YApiUtil {
 	private static List<YApiForm> listYApiForms(List<FieldInfo> requestFields) {
 		List<YApiForm> yApiForms = new ArrayList<>();
 		for (FieldInfo fieldInfo : requestFields) {
-			if (getPathVariableAnnotation(fieldInfo.getAnnotations()) != null) {
+			if (fieldInfo.getPathVariable() != null) {
 				continue;
 			}
 			if (TypeEnum.LITERAL.equals(fieldInfo.getParamType())) {
 				yApiForms.add(buildYApiForm(fieldInfo));
 			} else if (TypeEnum.OBJECT.equals(fieldInfo.getParamType())) {
 				List<FieldInfo> children = fieldInfo.getChildren();
-				for (FieldInfo info : children) {
-					yApiForms.add(buildYApiForm(info));
+				if (AssertUtils.isNotEmpty(children)) {
+					for (FieldInfo info : children) {
+						yApiForms.add(buildYApiForm(info));
+					}
 				}
 			} else {
 				YApiForm apiQuery = buildYApiForm(fieldInfo);
@@ -576,73 +824,20 @@ public class YApiUtil {
 		YApiForm param = new YApiForm();
 		param.setName(fieldInfo.getName());
 		param.setDesc(fieldInfo.getDesc());
-		param.setExample(FieldUtil.getValue(fieldInfo.getPsiType()).toString());
+		Object value = fieldInfo.getSample();
+		if (value != null) {
+			param.setExample(value.toString());
+		}
 		param.setRequired(convertRequired(fieldInfo.isRequire()));
 		return param;
 	}
 
-	private static RequestMethodEnum getMethodFromAnnotation(PsiAnnotation methodMapping) {
-		String text = methodMapping.getText();
-		if (text.contains(WebAnnotation.RequestMapping)) {
-			return extractMethodFromAttribute(methodMapping);
-		}
-		return extractMethodFromMappingText(text);
-	}
-
-	private static RequestMethodEnum extractMethodFromMappingText(String text) {
-		if (text.contains(WebAnnotation.GetMapping)) {
-			return RequestMethodEnum.GET;
-		}
-		if (text.contains(WebAnnotation.PutMapping)) {
-			return RequestMethodEnum.PUT;
-		}
-		if (text.contains(WebAnnotation.DeleteMapping)) {
-			return RequestMethodEnum.DELETE;
-		}
-		if (text.contains(WebAnnotation.PatchMapping)) {
-			return RequestMethodEnum.PATCH;
-		}
-		return RequestMethodEnum.POST;
-	}
-
-	private static RequestMethodEnum extractMethodFromAttribute(PsiAnnotation annotation) {
-		PsiNameValuePair[] psiNameValuePairs = annotation.getParameterList().getAttributes();
-		for (PsiNameValuePair psiNameValuePair : psiNameValuePairs) {
-			if ("method".equals(psiNameValuePair.getName())) {
-				return RequestMethodEnum.valueOf(psiNameValuePair.getValue().getReference().resolve().getText());
-			}
-		}
-		return RequestMethodEnum.POST;
-	}
-
-	private static PsiAnnotation getMethodMapping(PsiMethod psiMethod) {
-		for (PsiAnnotation annotation : psiMethod.getAnnotations()) {
-			String text = annotation.getText();
-			if (text.contains("Mapping")) {
-				return annotation;
-			}
-		}
-		return null;
-	}
-
 	private static boolean hasMappingAnnotation(PsiMethod method) {
-		PsiAnnotation[] annotations = method.getAnnotations();
-		for (PsiAnnotation annotation : annotations) {
-			if (annotation.getText().contains("Mapping")) {
-				return true;
-			}
-		}
-		return false;
+		return AnnotationInfo.of(method).isMapping();
 	}
 
 	public static boolean haveControllerAnnotation(PsiClass psiClass) {
-		PsiAnnotation[] annotations = psiClass.getAnnotations();
-		for (PsiAnnotation annotation : annotations) {
-			if (annotation.getText().contains(WebAnnotation.Controller)) {
-				return true;
-			}
-		}
-		return false;
+		return AnnotationInfo.of(psiClass).isController();
 	}
 
 
@@ -658,34 +853,25 @@ public class YApiUtil {
 		return dirPath;
 	}
 
-	private static boolean generateDocForClass(Project project, PsiClass psiClass, String dirPath) throws IOException {
-		if (!mkDirectory(project, dirPath)) {
-			return false;
-		}
-		String fileName = psiClass.getName();
+	private static boolean generateDocForClass(String fileName, List<FieldInfo> fieldInfos, String dirPath) throws IOException {
 		File apiDoc = new File(dirPath + SLASH + fileName + ".md");
 		boolean notExist = apiDoc.createNewFile();
-		if(!notExist) {
-			if(!config.getState().overwrite) {
-				int choose = Messages.showOkCancelDialog(fileName + ".md already exists,do you want to overwrite it?", "Overwrite Warning!", "Yes", "No", Messages.getWarningIcon());
-				if(Messages.CANCEL == choose) {
-					return false;
-				}
-			}
+		if (!notExist && !confirmOverwrite(fileName)) {
+			return false;
 		}
 		try (Writer md = new FileWriter(apiDoc)) {
-			List<FieldInfo> fieldInfos = listFieldInfos(psiClass);
 			md.write("## 示例\n");
 			if (AssertUtils.isNotEmpty(fieldInfos)) {
 				md.write("```json\n");
-				md.write(JsonUtil.buildPrettyJson(fieldInfos) + "\n");
+				md.write(JsonUtil.buildPrettyJson(fieldInfos, config) + "\n");
 				md.write("```\n");
 			}
 			md.write("## 参数说明\n");
 			if (AssertUtils.isNotEmpty(fieldInfos)) {
 				writeParamTableHeader(md);
+				SchemaPath tablePath = SchemaPath.root(config);
 				for (FieldInfo fieldInfo : fieldInfos) {
-					writeFieldInfo(md, fieldInfo);
+					writeFieldInfo(md, fieldInfo, "", tablePath);
 				}
 			}
 		}
@@ -698,33 +884,22 @@ public class YApiUtil {
 	}
 
 	public static List<FieldInfo> listFieldInfos(PsiClass psiClass) {
-		List<FieldInfo> fieldInfos = new ArrayList<>();
-		for (PsiField psiField : psiClass.getAllFields()) {
-			if (config.getState().excludeFieldNames.contains(psiField.getName())) {
-				continue;
+		return ReadAction.compute(() -> {
+			List<FieldInfo> fieldInfos = new ArrayList<>();
+			for (PropertyInfo property : PropertyInfo.listProperties(psiClass)) {
+				fieldInfos.add(new FieldInfo(psiClass.getProject(), property.getName(), property.getType(), property.getDesc(), property.getAnnotationInfo()));
 			}
-			fieldInfos.add(new FieldInfo(psiClass.getProject(), psiField.getName(), psiField.getType(), DesUtil.getDescription(psiField.getDocComment()), psiField.getAnnotations()));
-		}
-		return fieldInfos;
+			return SchemaCache.getInstance(psiClass.getProject()).detach(fieldInfos);
+		});
 	}
 
-	private static boolean generateDocForMethod(Project project, PsiMethod selectedMethod, String dirPath) throws IOException {
-		if (!mkDirectory(project, dirPath)) {
-			return false;
-		}
-		MethodInfo methodInfo = new MethodInfo(selectedMethod);
+	private static boolean generateDocForMethod(MethodInfo methodInfo, Model pomModel, String dirPath) throws IOException {
 		String fileName = getFileName(methodInfo);
 		File apiDoc = new File(dirPath + SLASH + fileName + ".md");
 		boolean notExist = apiDoc.createNewFile();
-		if(!notExist) {
-			if(!config.getState().overwrite) {
-				int choose = Messages.showOkCancelDialog(fileName + ".md already exists,do you want to overwrite it?", "Overwrite Warning!", "Yes", "No", Messages.getWarningIcon());
-				if (Messages.CANCEL == choose) {
-					return false;
-				}
-			}
+		if (!notExist && !confirmOverwrite(fileName)) {
+			return false;
 		}
-		Model pomModel = getPomModel(project);
 		try (Writer md = new FileWriter(apiDoc)) {
 			md.write("## " + fileName + "\n");
 			md.write("## 功能介绍\n");
@@ -748,28 +923,32 @@ public class YApiUtil {
 			md.write("### 请求参数示例\n");
 			if (AssertUtils.isNotEmpty(methodInfo.getRequestFields())) {
 				md.write("```json\n");
-				md.write(JsonUtil.buildPrettyJson(methodInfo.getRequestFields()) + "\n");
+				md.write(JsonUtil.buildPrettyJson(methodInfo.getRequestFields(), config) + "\n");
 				md.write("```\n");
 			}
 			md.write("### 请求参数说明\n");
 			if (AssertUtils.isNotEmpty(methodInfo.getRequestFields())) {
 				writeParamTableHeader(md);
+				SchemaPath requestPath = SchemaPath.root(config);
 				for (FieldInfo fieldInfo : methodInfo.getRequestFields()) {
-					writeFieldInfo(md, fieldInfo);
+					writeFieldInfo(md, fieldInfo, "", requestPath);
 				}
 			}
 			md.write("\n## 返回结果\n");
 			md.write("### 返回结果示例\n");
 			if (AssertUtils.isNotEmpty(methodInfo.getResponseFields())) {
 				md.write("```json\n");
-				md.write(JsonUtil.buildPrettyJson(methodInfo.getResponse()) + "\n");
+				md.write(JsonUtil.buildPrettyJson(methodInfo.getResponse(), config) + "\n");
 				md.write("```\n");
 			}
 			md.write("### 返回结果说明\n");
 			if (AssertUtils.isNotEmpty(methodInfo.getResponseFields())) {
 				writeParamTableHeader(md);
-				for (FieldInfo fieldInfo : methodInfo.getResponseFields()) {
-					writeFieldInfo(md, fieldInfo, "");
+				SchemaPath responsePath = SchemaPath.root(config);
+				List<FieldInfo> responseFields = responsePath.childrenOf(methodInfo.getResponse());
+				responsePath = responsePath.enter(methodInfo.getResponse());
+				for (FieldInfo fieldInfo : responseFields) {
+					writeFieldInfo(md, fieldInfo, "", responsePath);
 				}
 			}
 		}
@@ -788,10 +967,9 @@ public class YApiUtil {
 		return true;
 	}
 
-	private static Model getPomModel(Project project) {
+	private static String getPomPath(Project project) {
 		PsiFile pomFile = FilenameIndex.getFilesByName(project, "pom.xml", GlobalSearchScope.projectScope(project))[0];
-		String pomPath = pomFile.getContainingDirectory().getVirtualFile().getPath() + "/pom.xml";
-		return readPom(pomPath);
+		return pomFile.getContainingDirectory().getVirtualFile().getPath() + "/pom.xml";
 	}
 
 	private static String getFileName(MethodInfo methodInfo) {
@@ -804,31 +982,25 @@ public class YApiUtil {
 		return methodInfo.getDesc().split(" ")[0];
 	}
 
-	private static void writeFieldInfo(Writer writer, FieldInfo info) throws IOException {
-		writer.write(buildFieldStr(info));
-		if (info.hasChildren()) {
-			for (FieldInfo fieldInfo : info.getChildren()) {
-				writeFieldInfo(writer, fieldInfo, getPrefix());
-			}
-		}
-	}
-
-	private static String buildFieldStr(FieldInfo info) {
-		return getFieldName(info) + "|" + info.getPsiType().getPresentableText() + "|" + getRequireStr(info.isRequire()) + "|" + getRange(info.getRange()) + "|" + info.getDesc() + "\n";
+	private static String buildFieldStr(FieldInfo info, boolean hasChildren) {
+		return getFieldName(info, hasChildren) + "|" + info.getTypeName() + "|" + getRequireStr(info.isRequire()) + "|" + getRange(info.getRange()) + "|" + info.getDesc() + "\n";
 	}
 
-	private static String getFieldName(FieldInfo info) {
-		if (info.hasChildren()) {
+	private static String getFieldName(FieldInfo info, boolean hasChildren) {
+		if (hasChildren) {
 			return "**" + info.getName() + "**";
 		}
 		return info.getName();
 	}
 
-	private static void writeFieldInfo(Writer writer, FieldInfo info, String prefix) throws IOException {
-		writer.write(prefix + buildFieldStr(info));
-		if (info.hasChildren()) {
-			for (FieldInfo fieldInfo : info.getChildren()) {
-				writeFieldInfo(writer, fieldInfo, getPrefix() + prefix);
+	private static void writeFieldInfo(Writer writer, FieldInfo info, String prefix, SchemaPath path) throws IOException {
+		List<FieldInfo> children = path.childrenOf(info);
+		boolean hasChildren = AssertUtils.isNotEmpty(children);
+		writer.write(prefix + buildFieldStr(info, hasChildren));
+		if (hasChildren) {
+			SchemaPath childPath = path.enter(info);
+			for (FieldInfo fieldInfo : children) {
+				writeFieldInfo(writer, fieldInfo, getPrefix() + prefix, childPath);
 			}
 		}
 	}
@@ -858,4 +1030,25 @@ public class YApiUtil {
 		}
 		return null;
 	}
+
+	/**
+	 * 待导入的接口
+	 */
+	private static class ImportEntry {
+		private final String name;
+		private final String catName;
+		private final YApiInterface yApiInterface;
+		private final String key;
+		private final String fingerprint;
+		private final boolean isNew;
+
+		private ImportEntry(String name, String catName, YApiInterface yApiInterface, String key, String fingerprint, boolean isNew) {
+			this.name = name;
+			this.catName = catName;
+			this.yApiInterface = yApiInterface;
+			this.key = key;
+			this.fingerprint = fingerprint;
+			this.isNew = isNew;
+		}
+	}
 }
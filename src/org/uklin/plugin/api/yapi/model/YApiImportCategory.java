@@ -0,0 +1,24 @@
+package org.uklin.plugin.api.yapi.model;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * import_data接口json格式导入数据中的一个分类，分类按名称匹配，不存在时由YApi创建
+ */
+@Data
+public class YApiImportCategory implements Serializable {
+    private static final long serialVersionUID = 4619834705318624473L;
+
+    private String name;
+    private String desc = "";
+    private List<YApiInterface> list = new ArrayList<>();
+
+    public YApiImportCategory(String name) {
+        this.name = name;
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.uklin.plugin.api.yapi.sdk;
+
+/**
+ * 单个YApi服务器的熔断器
+ * <p>
+ * 连续失败达到阈值后断开，断开期间的请求直接失败；断开一段时间后放行一个探测请求，
+ * 探测成功则恢复，失败或被取消则继续断开。探测请求超过断开时间仍未结束时再放行一个探测请求。
+ * 只有连接失败、超时和5xx等服务器不可用的情况计为失败
+ */
+public class CircuitBreaker {
+
+    private enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int failures;
+    /**
+     * 断开或放行探测请求的时间
+     */
+    private long openedAt;
+
+    /**
+     * @param failureThreshold 断开前允许的连续失败次数
+     * @param openMillis       断开后到放行探测请求的时间
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * 是否可以发送请求，断开时间已到时放行一个探测请求
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        //断开时间已到，或上一个探测请求一直没有结果
+        long now = System.currentTimeMillis();
+        if (now - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            openedAt = now;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 服务器正常响应，包括返回错误码
+     */
+    public synchronized void onSuccess() {
+        failures = 0;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 请求被调用方取消，没有结果。探测请求被取消时回到断开状态，断开时间结束后重新探测
+     */
+    public synchronized void onCancel() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    public synchronized int getFailures() {
+        return failures;
+    }
+}
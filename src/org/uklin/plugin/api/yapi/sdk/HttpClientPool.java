@@ -0,0 +1,166 @@
+package org.uklin.plugin.api.yapi.sdk;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.uklin.plugin.api.config.ApiGeneratorConfig;
+import org.uklin.plugin.api.util.HttpUtil;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * YApi服务器的HTTP客户端
+ * <p>
+ * 每个服务器一个带连接池的客户端，请求之间复用连接，空闲超过一分钟的连接自动关闭。
+ * 超时时间和每个服务器的最大连接数取自配置，修改配置后重新创建，项目关闭时全部释放。
+ * 请求通过{@link #execute}执行并记录正在使用客户端的请求数，被替换的客户端在请求全部结束后才关闭
+ */
+public class HttpClientPool implements Disposable {
+
+    private static final Logger LOG = Logger.getInstance(HttpClientPool.class);
+
+    private final Project project;
+    private final Map<String, ClientHolder> clients = new ConcurrentHashMap<>();
+
+    public HttpClientPool(Project project) {
+        this.project = project;
+    }
+
+    public static HttpClientPool getInstance(Project project) {
+        return ServiceManager.getService(project, HttpClientPool.class);
+    }
+
+    /**
+     * 使用服务器对应的客户端执行请求
+     */
+    public <T> T execute(String serverUrl, HttpUriRequest request, HttpUtil.ResponseReader<T> responseReader) throws IOException {
+        ClientHolder holder = acquire(serverUrl);
+        try {
+            return HttpUtil.execute(holder.client, request, responseReader);
+        } finally {
+            holder.release();
+        }
+    }
+
+    /**
+     * 替换全部客户端，修改连接配置后调用。之后的请求使用新的客户端，
+     * 旧客户端在正在进行的请求结束后关闭
+     */
+    public void reset() {
+        for (String key : clients.keySet()) {
+            ClientHolder holder = clients.remove(key);
+            if (holder != null) {
+                holder.retire();
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        reset();
+    }
+
+    private ClientHolder acquire(String serverUrl) {
+        String key = getServerKey(serverUrl);
+        while (true) {
+            ClientHolder holder = clients.computeIfAbsent(key, k -> new ClientHolder(k, createClient()));
+            if (holder.tryAcquire()) {
+                return holder;
+            }
+            //取到的客户端刚被替换，重新获取
+        }
+    }
+
+    private CloseableHttpClient createClient() {
+        ApiGeneratorConfig state = Objects.requireNonNull(ServiceManager.getService(project, ApiGeneratorConfig.class).getState());
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setDefaultMaxPerRoute(state.maxConnectionsPerRoute);
+        connectionManager.setMaxTotal(state.maxConnectionsPerRoute);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(state.connectTimeout)
+                .setConnectionRequestTimeout(state.connectTimeout)
+                .setSocketTimeout(state.readTimeout)
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictIdleConnections(1, TimeUnit.MINUTES)
+                //由YApiSdk按请求是否幂等决定是否重试
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    /**
+     * 协议、域名和端口相同的地址共用一个客户端
+     */
+    static String getServerKey(String serverUrl) {
+        try {
+            URI uri = URI.create(serverUrl.trim());
+            if (uri.getScheme() != null && uri.getAuthority() != null) {
+                return uri.getScheme() + "://" + uri.getAuthority();
+            }
+        } catch (IllegalArgumentException e) {
+            //无法解析的地址按原样区分
+        }
+        return serverUrl;
+    }
+
+    private static class ClientHolder {
+        private final String key;
+        private final CloseableHttpClient client;
+        /**
+         * 正在使用客户端的请求数
+         */
+        private int users;
+        private boolean retired;
+
+        private ClientHolder(String key, CloseableHttpClient client) {
+            this.key = key;
+            this.client = client;
+        }
+
+        /**
+         * @return 客户端已被替换时返回false
+         */
+        private synchronized boolean tryAcquire() {
+            if (retired) {
+                return false;
+            }
+            users++;
+            return true;
+        }
+
+        private synchronized void release() {
+            users--;
+            if (retired && users == 0) {
+                close();
+            }
+        }
+
+        private synchronized void retire() {
+            retired = true;
+            if (users == 0) {
+                close();
+            }
+        }
+
+        private void close() {
+            try {
+                client.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close http client of " + key, e);
+            }
+        }
+    }
+}
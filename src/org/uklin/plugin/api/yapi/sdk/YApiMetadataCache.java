@@ -0,0 +1,113 @@
+package org.uklin.plugin.api.yapi.sdk;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import org.uklin.plugin.api.yapi.model.YApiCat;
+import org.uklin.plugin.api.yapi.model.YApiProject;
+import org.uklin.plugin.api.yapi.model.YApiResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * YApi项目信息和分类缓存
+ * <p>
+ * 按服务器地址和项目token缓存，超过有效期后重新加载。每次上传开始时调用{@link #refresh}，
+ * 一次上传中分类列表只加载一次，新增的分类直接加入缓存，多个线程同时上传时同名分类只创建一次
+ */
+public class YApiMetadataCache {
+
+    private static final long TTL = TimeUnit.MINUTES.toMillis(10);
+
+    private final Project project;
+    private final Map<String, Metadata> metadataMap = new ConcurrentHashMap<>();
+
+    public YApiMetadataCache(Project project) {
+        this.project = project;
+    }
+
+    public static YApiMetadataCache getInstance(Project project) {
+        return ServiceManager.getService(project, YApiMetadataCache.class);
+    }
+
+    /**
+     * 使分类缓存失效，下次使用时重新加载
+     */
+    public void refresh(String serverUrl, String token) {
+        getMetadata(serverUrl, token).categoryLoadTime = 0;
+    }
+
+    public YApiProject getProjectInfo(String serverUrl, String token) throws IOException {
+        Metadata metadata = getMetadata(serverUrl, token);
+        synchronized (metadata) {
+            if (metadata.projectInfo == null || isExpired(metadata.projectLoadTime)) {
+                metadata.projectInfo = getData(YApiSdk.await(YApiSdk.getInstance(project).getProjectInfo(serverUrl, token)));
+                metadata.projectLoadTime = System.currentTimeMillis();
+            }
+            return metadata.projectInfo;
+        }
+    }
+
+    /**
+     * 分类ID，分类不存在时创建
+     *
+     * @param beforeRequest 缓存中没有、需要请求YApi时在每次请求前调用，用于限流
+     */
+    public String getCatId(String serverUrl, String token, String projectId, String catName, Runnable beforeRequest) throws IOException {
+        Metadata metadata = getMetadata(serverUrl, token);
+        YApiCat cachedCat = metadata.categories.get(catName);
+        if (cachedCat != null && !isExpired(metadata.categoryLoadTime)) {
+            return cachedCat.get_id().toString();
+        }
+        synchronized (metadata) {
+            if (isExpired(metadata.categoryLoadTime)) {
+                beforeRequest.run();
+                List<YApiCat> yApiCats = getData(YApiSdk.await(YApiSdk.getInstance(project).listCategories(serverUrl, token)));
+                metadata.categories.clear();
+                for (YApiCat cat : yApiCats) {
+                    metadata.categories.put(cat.getName(), cat);
+                }
+                metadata.categoryLoadTime = System.currentTimeMillis();
+            }
+            YApiCat apiCat = metadata.categories.get(catName);
+            if (apiCat == null) {
+                beforeRequest.run();
+                YApiResponse<YApiCat> yApiResponse = YApiSdk.await(YApiSdk.getInstance(project).addCategory(serverUrl, token, projectId, catName));
+                if (yApiResponse.getData() == null) {
+                    throw new IOException("Add category " + catName + " failed, cause:" + yApiResponse.getErrmsg());
+                }
+                apiCat = yApiResponse.getData();
+                metadata.categories.put(catName, apiCat);
+            }
+            return apiCat.get_id().toString();
+        }
+    }
+
+    /**
+     * 响应中的数据，YApi返回错误码时抛出异常
+     */
+    private static <T> T getData(YApiResponse<T> yApiResponse) throws IOException {
+        if (yApiResponse.getErrcode() != null && yApiResponse.getErrcode() != 0) {
+            throw new IOException(yApiResponse.getErrmsg());
+        }
+        return yApiResponse.getData();
+    }
+
+    private Metadata getMetadata(String serverUrl, String token) {
+        return metadataMap.computeIfAbsent(serverUrl + "|" + token, key -> new Metadata());
+    }
+
+    private static boolean isExpired(long loadTime) {
+        return System.currentTimeMillis() - loadTime > TTL;
+    }
+
+    private static class Metadata {
+        private YApiProject projectInfo;
+        private long projectLoadTime;
+        private final Map<String, YApiCat> categories = new ConcurrentHashMap<>();
+        private volatile long categoryLoadTime;
+    }
+}
@@ -2,24 +2,78 @@ package org.uklin.plugin.api.yapi.sdk;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ContentProducer;
+import org.jetbrains.annotations.Nullable;
+import org.uklin.plugin.api.config.ApiGeneratorConfig;
 import org.uklin.plugin.api.util.HttpUtil;
 import org.uklin.plugin.api.yapi.model.*;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
 import java.lang.reflect.Type;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
+/**
+ * YApi开放接口
+ * <p>
+ * 请求在单独的线程池中通过{@link HttpClientPool}的客户端执行，立即返回CompletableFuture。
+ * 请求失败、服务器返回非2xx状态码或响应无法解析时异常完成，
+ * 每次请求从开始执行起超过超时时间仍未完成时中断请求，以TimeoutException异常完成；
+ * 返回的CompletableFuture被取消时同样中断正在进行的请求。
+ * <p>
+ * 幂等的请求在连接失败、超时、5xx或429时按指数退避加随机抖动重试，添加分类不重试以免重复创建。
+ * 每个服务器一个{@link CircuitBreaker}，连续失败过多时后续请求直接失败，不再等待超时
+ */
 public class YApiSdk {
 
     private static final String PROJECT_INFO_URI = "/api/project/get";
     private static final String LIST_CATEGORY_URI = "/api/interface/getCatMenu";
     private static final String ADD_CATEGORY_URI = "/api/interface/add_cat";
     private static final String SAVE_INTERFACE_URI = "/api/interface/save";
+    private static final String IMPORT_DATA_URI = "/api/open/import_data";
+
+    /**
+     * 执行请求的线程数，实际并发请求数还受连接池大小限制
+     */
+    private static final int MAX_REQUEST_THREADS = 16;
+
+    /**
+     * 同步等待请求时检查取消的间隔
+     */
+    private static final long AWAIT_POLL_MILLIS = 100;
+
+    private static final long RETRY_BASE_MILLIS = 500;
+    private static final long RETRY_MAX_MILLIS = 10000;
+
+    /**
+     * 熔断前允许的连续失败次数
+     */
+    private static final int CIRCUIT_FAILURE_THRESHOLD = 5;
+    private static final long CIRCUIT_OPEN_MILLIS = TimeUnit.SECONDS.toMillis(30);
 
     private static Gson gson;
 
@@ -30,75 +84,268 @@ public class YApiSdk {
         gson = builder.create();
     }
 
+    private final Project project;
+    private final ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("ApiGenerator YApi", MAX_REQUEST_THREADS);
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    public YApiSdk(Project project) {
+        this.project = project;
+    }
+
+    public static YApiSdk getInstance(Project project) {
+        return ServiceManager.getService(project, YApiSdk.class);
+    }
+
     /**
-     * 获取项目信息
+     * 等待请求完成，在后台线程中同步调用时使用，当前线程的进度被取消时取消请求
      *
-     * @param token
-     * @return
-     * @throws IOException
+     * @throws IOException 请求失败或超时
      */
-    public static YApiProject getProjectInfo(String serverUrl, String token) throws IOException {
+    public static <T> T await(CompletableFuture<T> future) throws IOException {
+        return await(future, ProgressManager.getInstance().getProgressIndicator());
+    }
+
+    /**
+     * 等待请求完成，等待期间检查进度是否被取消，取消时取消请求并抛出ProcessCanceledException
+     *
+     * @param indicator 为null时不检查取消
+     * @throws IOException 请求失败或超时
+     */
+    public static <T> T await(CompletableFuture<T> future, @Nullable ProgressIndicator indicator) throws IOException {
+        try {
+            while (true) {
+                if (indicator != null && indicator.isCanceled()) {
+                    future.cancel(true);
+                    indicator.checkCanceled();
+                }
+                try {
+                    return future.get(AWAIT_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    //继续等待
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("YApi request interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof TimeoutException) {
+                throw new IOException(cause.getMessage(), cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * 获取项目信息
+     */
+    public CompletableFuture<YApiResponse<YApiProject>> getProjectInfo(String serverUrl, String token) {
         Map<String, String> params = new HashMap<>();
         params.put("token", token);
-        String responseStr = HttpUtil.doGet(serverUrl + PROJECT_INFO_URI, params);
         Type type = new TypeToken<YApiResponse<YApiProject>>() {
         }.getType();
-        YApiResponse<YApiProject> yApiResponse = gson.fromJson(responseStr, type);
-        return yApiResponse.getData();
+        return request(serverUrl, true, () -> HttpUtil.buildGetRequest(serverUrl + PROJECT_INFO_URI, params), responseReader(type));
     }
 
     /**
      * 获取分类列表
-     *
-     * @param token
-     * @return
-     * @throws IOException
      */
-    public static List<YApiCat> listCategories(String serverUrl, String token) throws IOException {
+    public CompletableFuture<YApiResponse<List<YApiCat>>> listCategories(String serverUrl, String token) {
         Map<String, String> params = new HashMap<>();
         params.put("token", token);
-        String responseStr = HttpUtil.doGet(serverUrl + LIST_CATEGORY_URI, params);
         Type type = new TypeToken<YApiResponse<List<YApiCat>>>() {
         }.getType();
-        YApiResponse<List<YApiCat>> yApiResponse = gson.fromJson(responseStr, type);
-        return yApiResponse.getData();
+        return request(serverUrl, true, () -> HttpUtil.buildGetRequest(serverUrl + LIST_CATEGORY_URI, params), responseReader(type));
     }
 
     /**
      * 添加分类
      *
-     * @param token
-     * @param projectId
-     * @param name      分类名称
-     * @return
-     * @throws IOException
+     * @param name 分类名称
      */
-    public static YApiResponse<YApiCat> addCategory(String serverUrl, String token, String projectId, String name) throws IOException {
-        return addCategory(serverUrl, token, projectId, name, "");
+    public CompletableFuture<YApiResponse<YApiCat>> addCategory(String serverUrl, String token, String projectId, String name) {
+        Map<String, String> params = new HashMap<>();
+        params.put("desc", "");
+        params.put("name", name);
+        params.put("project_id", projectId);
+        params.put("token", token);
+        Type type = new TypeToken<YApiResponse<YApiCat>>() {
+        }.getType();
+        return request(serverUrl, false, () -> buildPostRequest(serverUrl + ADD_CATEGORY_URI, params), responseReader(type));
     }
 
     /**
      * 保存接口（新增或更新）
-     *
-     * @param yApiInterface
-     * @return
-     * @throws IOException
      */
-    public static YApiResponse saveInterface(String serverUrl, YApiInterface yApiInterface) throws IOException {
-        String string = HttpUtil.doPost(serverUrl + SAVE_INTERFACE_URI, gson.toJson(yApiInterface));
-        return gson.fromJson(string, YApiResponse.class);
+    public CompletableFuture<YApiResponse<Object>> saveInterface(String serverUrl, YApiInterface yApiInterface) {
+        Type type = new TypeToken<YApiResponse<Object>>() {
+        }.getType();
+        return request(serverUrl, true, () -> buildPostRequest(serverUrl + SAVE_INTERFACE_URI, yApiInterface), responseReader(type));
     }
 
-    private static YApiResponse<YApiCat> addCategory(String serverUrl, String token, String projectId, String name, String desc) throws IOException {
+    /**
+     * 批量导入接口，分类不存在时由YApi创建
+     *
+     * @param merge 已存在接口的处理方式：normal不覆盖，good智能合并，merge完全覆盖
+     */
+    public CompletableFuture<YApiResponse<Object>> importData(String serverUrl, String token, List<YApiImportCategory> categories, String merge) {
         Map<String, String> params = new HashMap<>();
-        params.put("desc", desc);
-        params.put("name", name);
-        params.put("project_id", projectId);
+        params.put("type", "json");
+        //导入数据以字符串形式作为参数值，只能先生成完整的字符串
+        params.put("json", gson.toJson(categories));
+        params.put("merge", merge);
         params.put("token", token);
-        String string = HttpUtil.doPost(serverUrl + ADD_CATEGORY_URI, gson.toJson(params));
-        Type type = new TypeToken<YApiResponse<YApiCat>>() {
+        Type type = new TypeToken<YApiResponse<Object>>() {
         }.getType();
-        return gson.fromJson(string, type);
+        return request(serverUrl, true, () -> buildPostRequest(serverUrl + IMPORT_DATA_URI, params), responseReader(type));
     }
 
+    /**
+     * @param requestFactory 每次执行时创建新的请求，中断后的请求不能再次执行
+     * @param idempotent     是否可以重试，重复执行结果与执行一次相同
+     */
+    private <T> CompletableFuture<T> request(String serverUrl, boolean idempotent, Supplier<HttpRequestBase> requestFactory, HttpUtil.ResponseReader<T> responseReader) {
+        ApiGeneratorConfig state = Objects.requireNonNull(ServiceManager.getService(project, ApiGeneratorConfig.class).getState());
+        CircuitBreaker circuitBreaker = circuitBreakers.computeIfAbsent(HttpClientPool.getServerKey(serverUrl),
+                key -> new CircuitBreaker(CIRCUIT_FAILURE_THRESHOLD, CIRCUIT_OPEN_MILLIS));
+        CompletableFuture<T> future = new CompletableFuture<>();
+        attempt(serverUrl, circuitBreaker, requestFactory, responseReader, idempotent ? Math.max(0, state.maxRetries) : 0, 0, future);
+        return future;
+    }
+
+    private <T> void attempt(String serverUrl, CircuitBreaker circuitBreaker, Supplier<HttpRequestBase> requestFactory, HttpUtil.ResponseReader<T> responseReader,
+                             int maxRetries, int retry, CompletableFuture<T> future) {
+        if (future.isDone()) {
+            return;
+        }
+        if (!circuitBreaker.allowRequest()) {
+            future.completeExceptionally(new IOException("YApi server " + serverUrl + " is unavailable after " + circuitBreaker.getFailures() + " consecutive failures"));
+            return;
+        }
+        CompletableFuture<T> execution = execute(serverUrl, requestFactory, responseReader);
+        //调用方取消时中断本次请求
+        future.whenComplete((result, e) -> execution.cancel(false));
+        execution.whenComplete((result, e) -> {
+            if (future.isDone()) {
+                //已被取消，不计入熔断统计，但要释放探测请求的名额
+                circuitBreaker.onCancel();
+                return;
+            }
+            if (e == null) {
+                circuitBreaker.onSuccess();
+                future.complete(result);
+                return;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (!isServerFailure(cause)) {
+                //服务器有响应，只是请求本身有问题
+                circuitBreaker.onSuccess();
+                future.completeExceptionally(cause);
+                return;
+            }
+            circuitBreaker.onFailure();
+            if (retry >= maxRetries) {
+                future.completeExceptionally(cause);
+                return;
+            }
+            AppExecutorUtil.getAppScheduledExecutorService().schedule(() -> attempt(serverUrl, circuitBreaker, requestFactory, responseReader, maxRetries, retry + 1, future),
+                    getBackoffMillis(retry), TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * 执行一次请求，超时从请求开始执行时计算。超时或被取消时中断请求，
+     * 释放连接并结束执行线程中的读取，重试不会与未结束的请求同时进行
+     */
+    private <T> CompletableFuture<T> execute(String serverUrl, Supplier<HttpRequestBase> requestFactory, HttpUtil.ResponseReader<T> responseReader) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            HttpRequestBase httpRequest = requestFactory.get();
+            ApiGeneratorConfig state = Objects.requireNonNull(ServiceManager.getService(project, ApiGeneratorConfig.class).getState());
+            long timeout = state.connectTimeout * 2L + state.readTimeout;
+            ScheduledFuture<?> timer = AppExecutorUtil.getAppScheduledExecutorService().schedule(
+                    () -> future.completeExceptionally(new TimeoutException("YApi request timed out after " + timeout + "ms")),
+                    timeout, TimeUnit.MILLISECONDS);
+            future.whenComplete((result, e) -> {
+                timer.cancel(false);
+                if (e instanceof TimeoutException || e instanceof CancellationException) {
+                    httpRequest.abort();
+                }
+            });
+            try {
+                future.complete(HttpClientPool.getInstance(project).execute(serverUrl, httpRequest, responseReader));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 第retry次重试前的等待时间，指数增长，取上限的一半到上限之间的随机值，避免多个请求同时重试
+     */
+    private static long getBackoffMillis(int retry) {
+        long max = Math.min(RETRY_MAX_MILLIS, RETRY_BASE_MILLIS << Math.min(retry, 20));
+        return ThreadLocalRandom.current().nextLong(max / 2, max + 1);
+    }
+
+    /**
+     * 是否是服务器不可用导致的失败：连接失败、超时、没有响应、5xx或429
+     */
+    private static boolean isServerFailure(Throwable e) {
+        if (e instanceof HttpResponseException) {
+            int statusCode = ((HttpResponseException) e).getStatusCode();
+            return statusCode >= 500 || statusCode == 429;
+        }
+        return e instanceof TimeoutException
+                || e instanceof SocketException
+                || e instanceof InterruptedIOException
+                || e instanceof NoHttpResponseException;
+    }
+
+    /**
+     * POST请求，请求体由Gson直接写入连接，开启压缩时以gzip发送
+     */
+    private HttpPost buildPostRequest(String url, Object body) {
+        ApiGeneratorConfig state = Objects.requireNonNull(ServiceManager.getService(project, ApiGeneratorConfig.class).getState());
+        ContentProducer producer = out -> {
+            JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+            try {
+                gson.toJson(body, body.getClass(), writer);
+            } catch (JsonIOException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            writer.flush();
+        };
+        return HttpUtil.buildPostRequestWithJsonType(url, producer, state.gzipRequest);
+    }
+
+    /**
+     * 从响应流中解析YApi响应
+     */
+    private static <T> HttpUtil.ResponseReader<T> responseReader(Type type) {
+        return reader -> {
+            T response;
+            try {
+                response = gson.fromJson(reader, type);
+            } catch (JsonIOException e) {
+                throw new IOException(e.getMessage(), e);
+            } catch (JsonParseException e) {
+                throw new IOException("Invalid response from YApi: " + e.getMessage(), e);
+            }
+            if (response == null) {
+                throw new IOException("Empty response from YApi");
+            }
+            return response;
+        };
+    }
 }